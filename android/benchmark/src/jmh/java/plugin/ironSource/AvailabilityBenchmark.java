@@ -0,0 +1,72 @@
+// ----------------------------------------------------------------------------
+// AvailabilityBenchmark.java  –  per-frame availability polling from Lua
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.LuaState;
+import com.unity3d.mediation.FakeMediation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Games often poll availability every frame to enable a button. These calls
+ * must stay cheap: published state only, no SDK calls, no locks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AvailabilityBenchmark {
+
+    private BenchEnv env;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FakeMediation.reset();
+        env = new BenchEnv();
+        env.call("init", new CountingListener(), LuaState.table(
+                "key", "bench",
+                "interstitialAdUnitId", "is",
+                "rewardedVideoAdUnitId", "rv",
+                "waitForNetwork", false));
+        boolean ready = env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() {
+                return Boolean.TRUE.equals(env.call("isAvailable", "interstitial")[0])
+                        && Boolean.TRUE.equals(env.call("isAvailable", "rewardedVideo")[0]);
+            }
+        }, 5000);
+        if (!ready) throw new IllegalStateException("units never became available");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.close();
+    }
+
+    @Benchmark
+    public Object isAvailable() {
+        return env.call("isAvailable", "interstitial")[0];
+    }
+
+    @Benchmark
+    public Object getAvailability() {
+        return env.call("getAvailability")[0];
+    }
+
+    @Benchmark
+    public Object getState() {
+        return env.call("getState", "rewardedVideo")[0];
+    }
+}
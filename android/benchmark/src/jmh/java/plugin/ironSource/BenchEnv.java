@@ -0,0 +1,76 @@
+// ----------------------------------------------------------------------------
+// BenchEnv.java  –  one plugin instance wired to the JVM stand-in runtime
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.os.Looper;
+
+import com.ansca.corona.CoronaActivity;
+import com.ansca.corona.CoronaEnvironment;
+import com.ansca.corona.CoronaRuntime;
+import com.naef.jnlua.JavaFunction;
+import com.naef.jnlua.LuaState;
+
+/**
+ * What {@code require("plugin.ironSource")} sets up on a device: a LuaLoader
+ * bound to a runtime, its module table, and an activity. The thread that
+ * calls {@link #frame()} plays the Corona runtime thread; SDK callbacks arrive
+ * on the main looper (or on whichever thread a benchmark fires them from).
+ */
+final class BenchEnv implements AutoCloseable {
+
+    final LuaState       L       = new LuaState();
+    final CoronaRuntime  runtime = new CoronaRuntime(L);
+    final CoronaActivity activity = new CoronaActivity();
+    final LuaLoader      loader  = new LuaLoader();
+    final LuaState.Table module;
+
+    BenchEnv() {
+        CoronaEnvironment.setCoronaActivity(activity);
+        module = (LuaState.Table) L.call(loader)[0];
+        loader.onLoaded(runtime);
+        loader.onStarted(runtime);
+    }
+
+    JavaFunction fn(String name) { return (JavaFunction) module.get(name); }
+
+    /** Calls {@code ironSource.<name>(args...)}. */
+    Object[] call(String name, Object... args) { return L.call(fn(name), args); }
+
+    /** One runtime frame. @return tasks run */
+    int frame() { return runtime.runFrame(); }
+
+    /** Lets posted UI work and the frames it triggers run to completion. */
+    void settle() {
+        Looper main = Looper.getMainLooper();
+        for (int i = 0; i < 4; i++) {
+            main.sync();
+            while (frame() > 0) { /* drain */ }
+        }
+    }
+
+    /** Settles until {@code done} holds or {@code timeoutMillis} passes. @return done */
+    boolean pumpUntil(Condition done, long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        while (!done.holds()) {
+            if (System.nanoTime() > deadline) return false;
+            settle();
+            Thread.yield();
+        }
+        return true;
+    }
+
+    interface Condition {
+        boolean holds();
+    }
+
+    @Override
+    public void close() {
+        loader.onExiting(runtime);
+        runtime.stop();
+        CoronaEnvironment.clearRuntimeListeners();
+        Looper.getMainLooper().sync();
+    }
+}
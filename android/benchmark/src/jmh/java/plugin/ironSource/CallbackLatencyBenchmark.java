@@ -0,0 +1,129 @@
+// ----------------------------------------------------------------------------
+// CallbackLatencyBenchmark.java  –  concurrent SDK callbacks → Lua latency
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.LuaState;
+import com.unity3d.mediation.FakeAd;
+import com.unity3d.mediation.FakeMediation;
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Three SDK threads fire rewarded callbacks while one thread plays the
+ * Corona runtime. The runtime thread is measured on its own: each op posts a
+ * probe event (as an SDK callback would) and runs frames until the listener
+ * has received it, so its SampleTime result is the callback → listener
+ * delivery latency behind whatever the SDK threads queued first.
+ *
+ * JMH prints the group total and a line per method; read
+ * {@code callbacks:delivery} for delivery latency and
+ * {@code callbacks:sdkCallback} for SDK-thread time per callback (backoff
+ * included).
+ * The group total mixes the two and means nothing on its own.
+ *
+ * Senders back off while more than {@link #MAX_IN_FLIGHT} events are
+ * undelivered, so the run measures the steady state rather than an ever
+ * growing runtime queue. Needs at least four cores to mean much: with fewer,
+ * the percentiles mostly show the OS scheduler.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CallbackLatencyBenchmark {
+
+    private static final int MAX_IN_FLIGHT = 64;
+    /** Reward name that marks the runtime thread's own events. */
+    private static final String PROBE = "probe";
+
+    @Param({ "false", "true" })
+    public boolean batchEvents;
+
+    private BenchEnv env;
+    private FakeAd ad;
+    private LevelPlayAdInfo info;
+
+    private final AtomicLong fired = new AtomicLong();
+    private ProbeListener listener;
+    /** Runtime thread only. */
+    private long probesSent;
+
+    /** Runtime thread only. */
+    private static final class ProbeListener extends CountingListener {
+        long probes;
+
+        @Override
+        void onEvent(String phase, boolean isError, String response) {
+            if (PROBE.equals(response)) probes++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FakeMediation.reset();
+        FakeMediation.config.manual = true;
+        env = new BenchEnv();
+        listener = new ProbeListener();
+        env.call("init", listener, LuaState.table(
+                "key", "bench",
+                "rewardedVideoAdUnitId", "rv",
+                "batchEvents", batchEvents,
+                "waitForNetwork", false));
+        FakeMediation.config.manual = false;
+        env.settle();
+        FakeMediation.config.manual = true;
+        ad = FakeMediation.latest("rv");
+        if (ad == null) throw new IllegalStateException("rewarded unit did not start");
+        info = ad.info("bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.close();
+    }
+
+    /** SDK thread: one callback up to the hand-off to the runtime, or a backoff. */
+    @Benchmark
+    @Group("callbacks")
+    @GroupThreads(3)
+    public boolean sdkCallback() {
+        if (fired.get() - listener.delivered > MAX_IN_FLIGHT) {
+            Thread.yield();
+            return false;
+        }
+        fired.incrementAndGet();
+        ad.fireRewarded("reward", 1, info);
+        return true;
+    }
+
+    /** Runtime thread: one probe event, from callback to the listener returning. */
+    @Benchmark
+    @Group("callbacks")
+    @GroupThreads(1)
+    public long delivery() {
+        long target = ++probesSent;
+        fired.incrementAndGet();
+        ad.fireRewarded(PROBE, 1, info);
+        while (listener.probes < target) {
+            env.frame();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,38 @@
+// ----------------------------------------------------------------------------
+// CountingListener.java  –  Lua-side event listener stand-in
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.JavaFunction;
+import com.naef.jnlua.LuaState;
+
+/**
+ * Reads the fields a typical game listener reads (type, phase, isError,
+ * response) through the LuaState API and counts deliveries. Runtime thread only,
+ * but {@link #delivered} is volatile so other threads can watch progress.
+ */
+class CountingListener implements JavaFunction {
+
+    volatile long delivered;
+    String lastPhase;
+    String lastResponse;
+
+    @Override
+    public int invoke(LuaState L) {
+        L.getField(1, "type");
+        L.getField(1, "phase");
+        L.getField(1, "isError");
+        L.getField(1, "response");
+        lastPhase    = L.toString(-3);
+        lastResponse = L.toString(-1);
+        boolean error = L.toBoolean(-2);
+        L.pop(4);
+        onEvent(lastPhase, error, lastResponse);
+        delivered++;
+        return 0;
+    }
+
+    void onEvent(String phase, boolean isError, String response) {}
+}
@@ -0,0 +1,99 @@
+// ----------------------------------------------------------------------------
+// EventDispatchBenchmark.java  –  SDK callback → Lua listener, single thread
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.LuaState;
+import com.unity3d.mediation.FakeAd;
+import com.unity3d.mediation.FakeMediation;
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one rewarded callback from the SDK listener to the Lua listener
+ * returning, including the runtime frame that delivers it.
+ *
+ *   direct      init(listener): one runtime task per event
+ *   batched     init(listener, { batchEvents = true }): queued, drained per frame
+ *   subscribed  init(nil) + addEventListener("rewardedVideo", "reward", fn)
+ *   filteredOut init(nil) + a subscription that does not want rewards:
+ *               the event is dropped in the callback, before anything is queued
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventDispatchBenchmark {
+
+    @Param({ "direct", "batched", "subscribed", "filteredOut" })
+    public String mode;
+
+    private BenchEnv env;
+    private CountingListener listener;
+    private FakeAd ad;
+    private LevelPlayAdInfo info;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FakeMediation.reset();
+        FakeMediation.config.manual = true;   // we fire the callbacks ourselves
+
+        env = new BenchEnv();
+        listener = new CountingListener();
+        LuaState.Table options = LuaState.table(
+                "key", "bench",
+                "rewardedVideoAdUnitId", "rv",
+                "batchEvents", "batched".equals(mode),
+                "maxEventsPerFrame", 64,
+                "waitForNetwork", false);
+
+        boolean subscribe = "subscribed".equals(mode) || "filteredOut".equals(mode);
+        env.call("init", subscribe ? null : listener, options);
+        if (subscribe) {
+            String phase = "subscribed".equals(mode) ? "reward" : "closed";
+            env.call("addEventListener", "rewardedVideo", phase, listener);
+        }
+        FakeMediation.config.manual = false;
+        env.settle();                          // SDK init → units created
+        FakeMediation.config.manual = true;
+
+        ad = FakeMediation.latest("rv");
+        if (ad == null) throw new IllegalStateException("rewarded unit did not start");
+        info = ad.info("bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.close();
+    }
+
+    @Benchmark
+    public long single() {
+        ad.fireRewarded("coins", 1, info);
+        env.frame();
+        return listener.delivered;
+    }
+
+    /** Sixteen callbacks between two frames, as after a resume or a burst of loads. */
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public long burst16() {
+        for (int i = 0; i < 16; i++) ad.fireRewarded("coins", 1, info);
+        while (env.frame() > 0) { /* drain */ }
+        return listener.delivered;
+    }
+}
@@ -0,0 +1,34 @@
+// ----------------------------------------------------------------------------
+// FakeNetworkStateSource.java  –  connectivity the harness switches by hand
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+/**
+ * Stands in for {@link AndroidNetworkStateSource}. Install it with
+ * {@link LuaLoader#setNetworkStateSource} before init(); {@link #set} then
+ * reports a change the way a ConnectivityManager callback would, on the
+ * calling thread.
+ */
+final class FakeNetworkStateSource implements NetworkStateSource {
+
+    private volatile int state = UNMETERED;
+    private volatile Listener listener;
+
+    @Override
+    public int current() { return state; }
+
+    @Override
+    public void start(Listener listener) { this.listener = listener; }
+
+    @Override
+    public void stop() { listener = null; }
+
+    /** @param state one of the {@link NetworkStateSource} constants */
+    void set(int state) {
+        this.state = state;
+        Listener l = listener;
+        if (l != null) l.onNetworkStateChanged(state);
+    }
+}
@@ -0,0 +1,94 @@
+// ----------------------------------------------------------------------------
+// InitOptionsBenchmark.java  –  ironSource.init() option parsing and setup
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.LuaState;
+import com.unity3d.mediation.FakeMediation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Lua-thread part of init(): reading the options table, building the ad
+ * units, memory policy and load gate, and posting the SDK start. The fake SDK
+ * never completes init here, so units are created but never load.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InitOptionsBenchmark {
+
+    @Param({ "minimal", "full" })
+    public String options;
+
+    private BenchEnv env;
+    private CountingListener listener;
+    private LuaState.Table table;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FakeMediation.reset();
+        FakeMediation.config.initCallback = false;
+        env = new BenchEnv();
+        listener = new CountingListener();
+
+        if ("minimal".equals(options)) {
+            table = LuaState.table(
+                    "key", "bench",
+                    "interstitialAdUnitId", "is",
+                    "rewardedVideoAdUnitId", "rv");
+            return;
+        }
+        table = LuaState.table(
+                "key", "bench",
+                "interstitialAdUnitId", "is",
+                "rewardedVideoAdUnitId", "rv",
+                "userId", "player-1",
+                "hasUserConsent", true,
+                "coppaUnderAge", false,
+                "ccpaDoNotSell", true,
+                "showDebugLog", false,
+                "poolSize", 2,
+                "adTtl", 1800,
+                "autoReload", true,
+                "reloadMinDelay", 2000,
+                "reloadMaxDelay", 60000,
+                "batchEvents", true,
+                "maxEventsPerFrame", 16,
+                "meteredPolicy", "reduced",
+                "reconnectBurstInterval", 200,
+                "memoryCooldown", 15000,
+                "memoryPolicy", LuaState.table(
+                        "runningLow", "pauseRefill",
+                        "moderate", LuaState.array("pauseRefill", "dropPreloaded"),
+                        "complete", LuaState.array("dropPreloaded", "releaseAdObjects")),
+                "adUnits", LuaState.array(
+                        LuaState.table("key", "levelEnd", "format", "interstitial", "adUnitId", "is-2"),
+                        LuaState.table("key", "bonus", "format", "rewardedVideo", "adUnitId", "rv-2",
+                                "poolSize", 3)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.close();
+    }
+
+    @Benchmark
+    public int init() {
+        env.call("init", listener, table);
+        return env.L.stackDepth();
+    }
+}
@@ -0,0 +1,184 @@
+// ----------------------------------------------------------------------------
+// ImpressionLogCheck.java  –  pages an impression log across file rotations
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.LuaState;
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes numbered impressions into a small log (so it rotates every few
+ * batches) while a reader pages through it with a saved cursor, as a game
+ * uploading revenue would. Checks that:
+ *
+ *   - every record is read exactly once and in order, across rotations
+ *   - a cursor into the middle of a record resyncs to the next record
+ *   - a cursor from a file that has been rotated out restarts at the oldest
+ *   - a corrupt record ends the page without leaving anything on the Lua stack
+ *
+ * Exits non-zero on failure.
+ *
+ *   ../gradlew impressionLogCheck
+ */
+public final class ImpressionLogCheck {
+
+    private static final int ROUNDS     = 30;
+    private static final int PER_ROUND  = 20;
+    private static final int PAGE       = 7;
+
+    private final List<String> failures = new ArrayList<>();
+    private final LuaState L = new LuaState();
+    private ImpressionLog log;
+
+    private int written;
+    private int nextExpected;
+    private int rotations;
+
+    public static void main(String[] args) throws IOException {
+        ImpressionLogCheck check = new ImpressionLogCheck();
+        check.run();
+        if (check.failures.isEmpty()) {
+            System.out.println("PASS");
+        } else {
+            for (String f : check.failures) System.out.println("FAIL  " + f);
+        }
+        System.exit(check.failures.isEmpty() ? 0 : 1);
+    }
+
+    private void run() throws IOException {
+        File dir = Files.createTempDirectory("impressions").toFile();
+        log = new ImpressionLog(dir, 4096);   // the minimum; ~3 rounds per file
+        String cursor = null;
+        try {
+            String generation = null;
+            for (int round = 0; round < ROUNDS && failures.isEmpty(); round++) {
+                for (int i = 0; i < PER_ROUND; i++) {
+                    log.record(ImpressionLog.KIND_DISPLAYED, "interstitial",
+                            new LevelPlayAdInfo("is", "INTERSTITIAL", "p" + written++, 0.01));
+                }
+                log.flush();
+                cursor = readUpTo(cursor, written);
+                // The cursor moves to a new generation each time the reader crosses a rotation.
+                String gen = cursor.substring(0, cursor.indexOf(':'));
+                if (generation != null && !gen.equals(generation)) rotations++;
+                generation = gen;
+            }
+            check(rotations >= 3, "log rotated only " + rotations + " times");
+            System.out.printf("impressions %d written, %d read in pages of %d across %d rotations%n",
+                    written, nextExpected, PAGE, rotations);
+
+            checkMisalignedCursor();
+            checkStaleCursor();
+        } finally {
+            log.close();
+        }
+        if (cursor != null) checkCorruptRecord(new File(dir, "impressions.bin"), cursor);
+    }
+
+    /** Pages from {@code cursor} until record {@code count - 1} has been read. @return the new cursor */
+    private String readUpTo(String cursor, int count) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (nextExpected < count) {
+            LuaState.Table page = page(cursor, PAGE);
+            check(page.get("resynced") == null, "resynced while paging in order at record " + nextExpected);
+            LuaState.Table records = (LuaState.Table) page.get("records");
+            for (int k = 1; k <= records.length(); k++) {
+                String placement = (String) ((LuaState.Table) records.get(k)).get("placementName");
+                check(("p" + nextExpected).equals(placement),
+                        "expected p" + nextExpected + ", read " + placement);
+                nextExpected++;
+            }
+            if (page.get("cursor") != null) cursor = (String) page.get("cursor");
+            if (records.length() == 0) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("records p" + nextExpected + ".. not readable after 2 s");
+                    break;
+                }
+                Thread.yield();   // the writer thread has not flushed yet
+            }
+        }
+        return cursor;
+    }
+
+    private void checkMisalignedCursor() {
+        LuaState.Table first = page(null, 1);
+        String cursor = (String) first.get("cursor");
+        String first0 = placementAt(first, 1);
+        LuaState.Table second = page(cursor, 1);
+        String second0 = placementAt(second, 1);
+
+        // One byte into the second record: must skip to the third, and say so.
+        int colon = cursor.indexOf(':');
+        String inside = cursor.substring(0, colon + 1) + (Long.parseLong(cursor.substring(colon + 1)) + 1);
+        LuaState.Table page = page(inside, 1);
+        check(Boolean.TRUE.equals(page.get("resynced")), "misaligned cursor not flagged as resynced");
+        String third = placementAt(page, 1);
+        check(third != null && !third.equals(first0) && !third.equals(second0)
+                        && number(third) == number(second0) + 1,
+                "misaligned cursor resumed at " + third + " after " + second0);
+    }
+
+    private void checkStaleCursor() {
+        LuaState.Table oldest = page(null, 1);
+        LuaState.Table page = page("1:12", 1);
+        check(Boolean.TRUE.equals(page.get("resynced")), "stale generation not flagged as resynced");
+        check(placementAt(oldest, 1) != null && placementAt(oldest, 1).equals(placementAt(page, 1)),
+                "stale cursor resumed at " + placementAt(page, 1) + ", oldest is " + placementAt(oldest, 1));
+    }
+
+    /**
+     * Appends a record whose flags promise a string it does not contain. The
+     * page from just before it must come back whole, with no records and
+     * nothing else left behind on the stack.
+     */
+    private void checkCorruptRecord(File current, String end) throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(current, true));
+        try {
+            out.writeShort(18);
+            out.writeByte(ImpressionLog.KIND_DISPLAYED);
+            out.writeLong(System.currentTimeMillis());
+            out.writeDouble(0.01);
+            out.writeByte(1);   // first string present, but the record ends here
+        } finally {
+            out.close();
+        }
+        int top = L.getTop();
+        LuaState.Table page = page(end, PAGE);
+        check(L.getTop() == top, "corrupt record left " + (L.getTop() - top) + " values on the Lua stack");
+        Object records = page.get("records");
+        check(records instanceof LuaState.Table && ((LuaState.Table) records).length() == 0,
+                "corrupt record read as " + records);
+    }
+
+    private LuaState.Table page(String cursor, int limit) {
+        log.pushPage(L, cursor, limit);
+        LuaState.Table page = (LuaState.Table) L.valueAt(-1);
+        L.pop(1);
+        return page;
+    }
+
+    private static String placementAt(LuaState.Table page, int i) {
+        LuaState.Table record = (LuaState.Table) ((LuaState.Table) page.get("records")).get(i);
+        return (record == null) ? null : (String) record.get("placementName");
+    }
+
+    private static int number(String placement) { return Integer.parseInt(placement.substring(1)); }
+
+    private void check(boolean ok, String message) {
+        if (!ok) fail(message);
+    }
+
+    private void fail(String message) {
+        if (failures.size() < 20 && !failures.contains(message)) failures.add(message);
+    }
+}
@@ -0,0 +1,784 @@
+// ----------------------------------------------------------------------------
+// SoakHarness.java  –  long-running lifecycle soak with leak checks
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.content.ComponentCallbacks2;
+import android.os.Looper;
+import android.util.Log;
+
+import com.naef.jnlua.JavaFunction;
+import com.naef.jnlua.LuaState;
+import com.unity3d.mediation.FakeAd;
+import com.unity3d.mediation.FakeMediation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Drives one plugin instance through tens of thousands of load/show/close
+ * cycles against {@link FakeMediation}, mixing in re-init, listener churn,
+ * suspend/resume, memory trims, a listener that unsubscribes itself during
+ * replay, connectivity drops, a second show() while an ad is on screen and
+ * (with --batchEvents) callback bursts larger than the event ring, then checks
+ * that nothing grew:
+ *
+ *   refs     Lua registry refs end at exactly listener + live subscriptions
+ *   queues   runtime tasks drain to zero; the UI looper stays bounded
+ *   heap     used heap after GC grows by less than --heapSlackMb past warm-up
+ *   ads      live SDK ad objects after GC stay within the pool sizes
+ *
+ * Every random choice comes from --seed, so a failing run can be repeated.
+ * Prints throughput and callback → listener latency percentiles, and exits
+ * non-zero if any check fails.
+ *
+ *   ../gradlew soak -PsoakArgs="--cycles=50000 --fill=0.7 --loadLatency=2"
+ */
+public final class SoakHarness {
+
+    // -------------------------------------------------------------------------
+    // Settings (--name=value)
+    // -------------------------------------------------------------------------
+
+    static final class Settings {
+        int    cycles         = 20000;
+        long   seed           = 42;
+        int    reinitEvery    = 1000;
+        boolean batchEvents;
+        boolean adaptivePreload;
+        boolean tracing;
+        double fill           = 0.9;
+        int    failEvery;
+        double showFail       = 0.02;
+        double neverClose     = 0.01;
+        long   loadLatency;
+        long   loadJitter;
+        long   displayLatency;
+        long   showDuration;
+        long   closeTimeout   = 200;
+        long   heapSlackMb    = 16;
+
+        static Settings parse(String[] args) {
+            Settings s = new Settings();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                    throw new IllegalArgumentException("expected --name=value, got " + arg);
+                }
+                String name  = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "cycles":         s.cycles = Integer.parseInt(value); break;
+                    case "seed":           s.seed = Long.parseLong(value); break;
+                    case "reinitEvery":    s.reinitEvery = Integer.parseInt(value); break;
+                    case "batchEvents":    s.batchEvents = Boolean.parseBoolean(value); break;
+                    case "adaptivePreload": s.adaptivePreload = Boolean.parseBoolean(value); break;
+                    case "tracing":        s.tracing = Boolean.parseBoolean(value); break;
+                    case "fill":           s.fill = Double.parseDouble(value); break;
+                    case "failEvery":      s.failEvery = Integer.parseInt(value); break;
+                    case "showFail":       s.showFail = Double.parseDouble(value); break;
+                    case "neverClose":     s.neverClose = Double.parseDouble(value); break;
+                    case "loadLatency":    s.loadLatency = Long.parseLong(value); break;
+                    case "loadJitter":     s.loadJitter = Long.parseLong(value); break;
+                    case "displayLatency": s.displayLatency = Long.parseLong(value); break;
+                    case "showDuration":   s.showDuration = Long.parseLong(value); break;
+                    case "closeTimeout":   s.closeTimeout = Long.parseLong(value); break;
+                    case "heapSlackMb":    s.heapSlackMb = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("unknown option --" + name);
+                }
+            }
+            return s;
+        }
+    }
+
+    private static final String[] UNITS = { "interstitial", "rewardedVideo" };
+    private static final int POOL_SIZE = 2;
+
+    /** Upper bounds checked on every cycle. */
+    private static final int MAX_LIVE_REFS      = 16;
+    private static final int MAX_RUNTIME_TASKS  = 1024;
+    private static final int MAX_LOOPER_TASKS   = 64;
+
+    /** Rewards fired in one burst: more than the event ring holds, less than ring + spill. */
+    private static final int BURST = 400;
+    /** LuaLoader's default maxEventsPerFrame. */
+    private static final int EVENTS_PER_FRAME = 8;
+    /** reconnectBurstInterval; wide enough that one settle() cannot span two releases. */
+    private static final long RECONNECT_BURST_MS = 200;
+
+    // -------------------------------------------------------------------------
+    // Lua-side stand-ins
+    // -------------------------------------------------------------------------
+
+    /** The init() listener; times each event from the fake SDK creating its adInfo. */
+    private final class EventListener extends CountingListener {
+        @Override
+        public int invoke(LuaState L) {
+            L.getField(1, "adInfo");
+            AdInfoProxy adInfo = (AdInfoProxy) L.toJavaObject(-1, AdInfoProxy.class);
+            L.pop(1);
+            if (adInfo != null) {
+                adInfo.pushField(L, "instanceId");
+                latency.add(System.nanoTime() - Long.parseLong(L.toString(-1)));
+                L.pop(1);
+            }
+            events++;
+            return super.invoke(L);
+        }
+
+        @Override
+        void onEvent(String phase, boolean isError, String response) {
+            if ("closed".equals(phase)) closedEvents++;
+        }
+    }
+
+    /** A fresh onComplete closure per request, as a game would write it. */
+    private final class Completion implements JavaFunction {
+        boolean done;
+        String  result;
+        /** {@link #closedEvents} when this completed. */
+        long    closedSeen;
+
+        @Override
+        public int invoke(LuaState L) {
+            L.getField(1, "phase");
+            L.getField(1, "result");
+            result = L.toString(-1);
+            String key = L.toString(-2) + "/" + result;
+            L.pop(2);
+            Integer n = results.get(key);
+            results.put(key, (n == null) ? 1 : n + 1);
+            closedSeen = closedEvents;
+            done = true;
+            return 0;
+        }
+    }
+
+    /** Fixed-size reservoir of nanosecond samples. */
+    private static final class Reservoir {
+        final long[] samples = new long[1 << 16];
+        final Random random;
+        long seen;
+        long max;
+
+        Reservoir(long seed) { random = new Random(seed); }
+
+        void add(long v) {
+            max = Math.max(max, v);
+            if (seen < samples.length) {
+                samples[(int) seen] = v;
+            } else {
+                long j = (long) (random.nextDouble() * (seen + 1));
+                if (j < samples.length) samples[(int) j] = v;
+            }
+            seen++;
+        }
+
+        String describe() {
+            int n = (int) Math.min(seen, samples.length);
+            if (n == 0) return "no samples";
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            return String.format("p50 %.1f us, p99 %.1f us, max %.1f us",
+                    sorted[n / 2] / 1e3, sorted[Math.min(n - 1, (int) (n * 0.99))] / 1e3, max / 1e3);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+
+    private final Settings settings;
+    private final Random random;
+    private final BenchEnv env = new BenchEnv();
+    private final FakeNetworkStateSource network = new FakeNetworkStateSource();
+    private final Reservoir latency;
+    private final Map<String, Integer> results = new LinkedHashMap<>();
+    private final List<String> failures = new ArrayList<>();
+
+    private long events;
+    /** "closed" events seen by the init() listener. */
+    private long closedEvents;
+    private long shows;
+    private long unavailable;
+    private long loads;
+    private long inits;
+    private long traceSpans;
+    private long traceDropped;
+
+    /** Outstanding load() per unit; a game waits for one before asking again. */
+    private final Map<String, Completion> loading = new LinkedHashMap<>();
+    private JavaFunction subscription;
+    private int maxRefs;
+    private int maxRuntimeTasks;
+    private int maxLooperTasks;
+
+    private SoakHarness(Settings settings) {
+        this.settings = settings;
+        this.random   = new Random(settings.seed);
+        this.latency  = new Reservoir(settings.seed);
+    }
+
+    public static void main(String[] args) {
+        Settings settings = Settings.parse(args);
+        configureBackend(settings);
+        SoakHarness soak = new SoakHarness(settings);
+        boolean ok;
+        try {
+            ok = soak.run();
+        } finally {
+            soak.env.close();
+            LuaLoader.setNetworkStateSource(null);
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static void configureBackend(Settings s) {
+        FakeMediation.reset();
+        FakeMediation.Config c = FakeMediation.config;
+        c.seed             = s.seed;
+        c.fillRate         = s.fill;
+        c.failEveryNthLoad = s.failEvery;
+        c.showFailRate     = s.showFail;
+        c.neverCloseRate   = s.neverClose;
+        c.loadLatencyMs    = s.loadLatency;
+        c.loadJitterMs     = s.loadJitter;
+        c.displayLatencyMs = s.displayLatency;
+        c.showDurationMs   = s.showDuration;
+        FakeMediation.reseed();
+    }
+
+    private LuaState.Table options() {
+        return LuaState.table(
+                "key", "soak",
+                "interstitialAdUnitId", "is",
+                "rewardedVideoAdUnitId", "rv",
+                "poolSize", POOL_SIZE,
+                "batchEvents", settings.batchEvents,
+                "adaptivePreload", settings.adaptivePreload,
+                "tracing", settings.tracing,
+                "reloadMinDelay", 10,
+                "reloadMaxDelay", 200,
+                "memoryCooldown", 20,
+                "reconnectBurstInterval", RECONNECT_BURST_MS,
+                // Watchdog defaults for the shows below that pass no timeouts of their own.
+                "showTimeout", 2000,
+                "closeTimeout", settings.closeTimeout);
+    }
+
+    private void init() {
+        env.call("init", new EventListener(), options());
+        inits++;
+    }
+
+    // -------------------------------------------------------------------------
+    // Run
+    // -------------------------------------------------------------------------
+
+    private boolean run() {
+        System.out.printf("soak: %d cycles, seed %d, fill %.2f, showFail %.2f, loadLatency %d ms%n",
+                settings.cycles, settings.seed, settings.fill, settings.showFail, settings.loadLatency);
+
+        LuaLoader.setNetworkStateSource(network);
+        // A unit created before the first init() is carried over into init's registry.
+        env.call("createAdUnit", LuaState.table("key", "early", "format", "interstitial", "adUnitId", "early"));
+        init();
+        env.settle();
+        check(env.call("getState", "early")[0] != null, "unit created before init() was dropped by init()");
+
+        int warmup = Math.max(1, settings.cycles / 10);
+        long baselineHeap = 0;
+        long started = 0;
+        boolean aborted = false;
+
+        int i = 0;
+        try {
+            for (; i < settings.cycles; i++) {
+                if (i == warmup) {
+                    baselineHeap = usedHeapAfterGc();
+                    started = System.nanoTime();
+                    latency.seen = 0;
+                    latency.max = 0;
+                }
+                cycle(i);
+                sample(i);
+            }
+        } catch (Abort e) {
+            aborted = true;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            check(false, e + " at cycle " + i);
+            aborted = true;
+        }
+        long elapsed = (started == 0) ? 0 : System.nanoTime() - started;
+        int measured = Math.max(0, i - warmup);
+
+        // After an abort the plugin is mid-failure; these would only restate it.
+        if (!aborted) {
+            final int expectedRefs = 1 + (subscription != null ? 1 : 0);
+            boolean drained = env.pumpUntil(new BenchEnv.Condition() {
+                @Override
+                public boolean holds() {
+                    return env.L.liveRefs() == expectedRefs && env.runtime.pendingTasks() == 0;
+                }
+            }, 5000);
+            check(drained, "did not drain within 5 s: " + env.runtime.pendingTasks()
+                    + " runtime tasks, " + env.L.liveRefs() + " live Lua refs (expected " + expectedRefs + ")");
+            check(env.L.stackDepth() == 0, "Lua stack not empty: " + env.L.stackDepth());
+        }
+        long growth = (baselineHeap == 0) ? 0 : usedHeapAfterGc() - baselineHeap;
+        int liveAds = FakeMediation.liveAds();
+        if (!aborted) {
+            check(growth < settings.heapSlackMb << 20,
+                    String.format("heap grew %.1f MB after warm-up", growth / 1048576.0));
+            check(liveAds <= UNITS.length * POOL_SIZE * 2,
+                    "live ad objects after GC: " + liveAds);
+        }
+
+        report(elapsed, measured, growth, liveAds);
+        return failures.isEmpty();
+    }
+
+    private void cycle(int i) {
+        if (i > 0 && i % settings.reinitEvery == 0) {
+            init();
+        }
+        if (i % 250 == 125) {
+            // Listener churn: add a catch-all subscription, remove it next time round.
+            if (subscription == null) {
+                subscription = new CountingListener();
+                env.call("addEventListener", "*", subscription);
+            } else {
+                checkFatal(Boolean.TRUE.equals(env.call("removeEventListener", "*", subscription)[0]),
+                        "removeEventListener failed at cycle " + i);
+                subscription = null;
+            }
+        }
+        if (i % 700 == 350) {
+            env.loader.onSuspended(env.runtime);
+            env.settle();
+            env.loader.onResumed(env.runtime);
+        }
+        if (i % 2000 == 600) {
+            suspendedShow(i);
+        }
+        if (i % 2000 == 1100) {
+            replayWithoutListener(i);
+        }
+        if (i % 2000 == 1300) {
+            deferredReinit(i);
+        }
+        if (settings.batchEvents && i % 2000 == 1600) {
+            eventBurst(i);
+        }
+        if (i % 2000 == 1800) {
+            connectivityDrop(i);
+        }
+        if (i % 2000 == 1900) {
+            doubleShow(i);
+        }
+        if (i % 1500 == 1499) {
+            memoryTrim(i, (i % 3000 == 2999)
+                    ? ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+                    : ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        }
+
+        if (settings.tracing && i % 500 == 499) exportTrace(i);
+
+        final String unit = UNITS[random.nextInt(UNITS.length)];
+        Completion load = loading.get(unit);
+        if ((load == null || load.done) && random.nextDouble() < 0.3) {
+            loads++;
+            load = new Completion();
+            loading.put(unit, load);
+            env.call("load", unit, LuaState.table("timeout", 1000, "onComplete", load));
+        }
+
+        // Give a refill (or a reload backoff) a moment before skipping the show.
+        boolean available = env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return Boolean.TRUE.equals(env.call("isAvailable", unit)[0]); }
+        }, 20);
+        if (!available) {
+            unavailable++;
+            return;
+        }
+        final Completion done = new Completion();
+        if (random.nextBoolean()) {
+            env.call("show", unit, LuaState.table(
+                    "timeout", 2000,
+                    "closeTimeout", settings.closeTimeout,
+                    "onComplete", done));
+        } else {
+            env.call("show", unit, LuaState.table("onComplete", done));
+        }
+        shows++;
+        boolean finished = env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return done.done; }
+        }, 5000);
+        checkFatal(finished, "show on " + unit + " never completed at cycle " + i);
+        // Whatever the outcome (including an ad that never closes), the unit must be free again.
+        checkFatal(!"showing".equals(env.call("getState", unit)[0]),
+                "unit " + unit + " still showing after its show completed at cycle " + i);
+    }
+
+    /**
+     * A show that closes while the app is suspended. Its onComplete is held
+     * with the events rather than delivered while suspended, and on resume
+     * arrives after the "closed" event it belongs to.
+     */
+    private void suspendedShow(int i) {
+        final String unit = "interstitial";
+        boolean available = env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return Boolean.TRUE.equals(env.call("isAvailable", unit)[0]); }
+        }, 2000);
+        if (!available) return;
+
+        long closedBefore = closedEvents;
+        final Completion done = new Completion();
+        env.loader.onSuspended(env.runtime);
+        env.call("show", unit, LuaState.table("onComplete", done));
+        env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return !"showing".equals(env.call("getState", unit)[0]); }
+        }, 5000);
+        checkFatal(!done.done, "show onComplete delivered while suspended at cycle " + i);
+
+        env.loader.onResumed(env.runtime);
+        boolean finished = env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return done.done; }
+        }, 2000);
+        checkFatal(finished, "show held while suspended never completed at cycle " + i);
+        if ("closed".equals(done.result)) {
+            checkFatal(done.closedSeen > closedBefore,
+                    "show onComplete overtook its closed event at cycle " + i);
+        }
+    }
+
+    /**
+     * The only listener unsubscribes itself during a replay. Events are held
+     * while suspended with init(nil); a "*" subscriber that removes itself on
+     * its first event is added; resume must deliver exactly that one event and
+     * leave the rest held instead of re-queueing it forever. The replay runs on
+     * a helper thread so a spinning runtime task fails the run rather than
+     * hanging it.
+     */
+    private void replayWithoutListener(int i) {
+        if (subscription != null) {
+            env.call("removeEventListener", "*", subscription);
+            subscription = null;
+        }
+        env.loader.onSuspended(env.runtime);
+        env.call("init", null, options());
+        inits++;
+        env.settle();
+
+        final CountingListener selfRemoving = new CountingListener() {
+            @Override
+            void onEvent(String phase, boolean isError, String response) {
+                env.call("removeEventListener", "*", this);
+            }
+        };
+        env.call("addEventListener", "*", selfRemoving);
+
+        Thread resume = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                env.loader.onResumed(env.runtime);
+                env.settle();
+            }
+        }, "soak-replay");
+        resume.setDaemon(true);
+        resume.start();
+        try {
+            resume.join(3000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkFatal(!resume.isAlive(), "replay still running 3 s after resume with no listener left at cycle " + i);
+        checkFatal(selfRemoving.delivered == 1,
+                "self-removing listener saw " + selfRemoving.delivered + " events at cycle " + i);
+
+        // Back to the normal listener; it receives whatever is still held.
+        init();
+        env.settle();
+    }
+
+    /**
+     * init() with deferInit twice before the first deferral has started the
+     * SDK. LevelPlay.init must run once, for the second call, and the new
+     * units must not load before it has.
+     */
+    private void deferredReinit(int i) {
+        env.settle();
+        long initsBefore = FakeMediation.initsStarted.get();
+        long loadsBefore = FakeMediation.loadsStarted.get();
+        env.call("init", new EventListener(), options().put("deferInit", true));
+        env.call("init", new EventListener(), options().put("deferInit", true));
+        inits += 2;
+        checkFatal(FakeMediation.loadsStarted.get() == loadsBefore,
+                "units loaded before the deferred SDK start at cycle " + i);
+
+        final long until = System.currentTimeMillis() + 300;
+        env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return System.currentTimeMillis() >= until; }
+        }, 1000);
+        long n = FakeMediation.initsStarted.get() - initsBefore;
+        checkFatal(n == 1, n + " LevelPlay.init calls for a deferred init() called twice at cycle " + i);
+    }
+
+    /**
+     * Fires more rewards than the batched event ring holds without running a
+     * frame in between. They must all arrive, in order, and no frame may
+     * deliver more than the per-frame budget.
+     */
+    private void eventBurst(int i) {
+        FakeAd ad = FakeMediation.latest("rv");
+        if (ad == null) return;
+        env.settle();
+
+        final List<String> seen = new ArrayList<>();
+        CountingListener ordered = new CountingListener() {
+            @Override
+            void onEvent(String phase, boolean isError, String response) {
+                if ("reward".equals(phase) && response != null && response.startsWith("burst-")) {
+                    seen.add(response);
+                }
+            }
+        };
+        env.call("addEventListener", "rewardedVideo", ordered);
+        for (int k = 0; k < BURST; k++) {
+            ad.fireRewarded("burst-" + k, 1, ad.info("burst"));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (seen.size() < BURST && System.currentTimeMillis() < deadline) {
+            int before = seen.size();
+            env.frame();
+            checkFatal(seen.size() - before <= EVENTS_PER_FRAME,
+                    (seen.size() - before) + " burst events in one frame at cycle " + i);
+        }
+        env.call("removeEventListener", "rewardedVideo", ordered);
+        checkFatal(seen.size() == BURST, "burst delivered " + seen.size() + " of " + BURST + " at cycle " + i);
+        for (int k = 0; k < seen.size(); k++) {
+            if (!("burst-" + k).equals(seen.get(k))) {
+                fail("burst event " + k + " arrived as " + seen.get(k) + " at cycle " + i, true);
+                break;
+            }
+        }
+    }
+
+    /**
+     * A double tap: show() again while the first ad is on screen, with a
+     * display timeout shorter than the ad. The second call joins the first
+     * show; its timeout must not release the ad still showing, and both
+     * complete with "closed" when the ad does.
+     */
+    private void doubleShow(int i) {
+        final String unit = "rewardedVideo";
+        boolean available = env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return Boolean.TRUE.equals(env.call("isAvailable", unit)[0]); }
+        }, 2000);
+        if (!available) return;
+
+        long duration = FakeMediation.config.showDurationMs;
+        FakeMediation.config.showDurationMs = 600;
+        try {
+            final Completion first  = new Completion();
+            final Completion second = new Completion();
+            env.call("show", unit, LuaState.table("closeTimeout", 5000, "onComplete", first));
+            env.settle();   // displayed
+            env.call("show", unit, LuaState.table("timeout", 100, "closeTimeout", 5000, "onComplete", second));
+            final long until = System.currentTimeMillis() + 300;
+            env.pumpUntil(new BenchEnv.Condition() {
+                @Override
+                public boolean holds() { return System.currentTimeMillis() >= until; }
+            }, 1000);
+            checkFatal("showing".equals(env.call("getState", unit)[0]),
+                    "second show() released the ad on screen (state " + env.call("getState", unit)[0]
+                            + ") at cycle " + i);
+            env.pumpUntil(new BenchEnv.Condition() {
+                @Override
+                public boolean holds() { return first.done && second.done; }
+            }, 3000);
+            checkFatal("closed".equals(first.result) && "closed".equals(second.result),
+                    "double show completed " + first.result + " / " + second.result + " at cycle " + i);
+        } finally {
+            FakeMediation.config.showDurationMs = duration;
+        }
+    }
+
+    /**
+     * A trim in the foreground empties the pools, with or without pausing
+     * refills. Either way every unit must be loaded again shortly after the
+     * memoryCooldown, without a load() from the game.
+     */
+    private void memoryTrim(int i, int level) {
+        env.activity.trimMemory(level);
+        boolean refilled = env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() {
+                for (String unit : UNITS) {
+                    if (!Boolean.TRUE.equals(env.call("isAvailable", unit)[0])) return false;
+                }
+                return true;
+            }
+        }, 2000);
+        checkFatal(refilled, "pools not refilled 2 s after memory trim " + level + " at cycle " + i);
+    }
+
+    /**
+     * Goes offline and re-inits, so every unit starts empty and wants to
+     * load. No load may reach the SDK while offline, not even an explicit
+     * load(), and a unit replaced while held must leave the gate. On
+     * reconnect the held units must be released one per
+     * reconnectBurstInterval rather than all at once.
+     */
+    private void connectivityDrop(int i) {
+        network.set(NetworkStateSource.OFFLINE);
+        env.settle();
+        long before = FakeMediation.loadsStarted.get();
+        init();
+        for (String unit : UNITS) {
+            env.call("load", unit, LuaState.table("timeout", 100, "onComplete", new Completion()));
+        }
+        final long until = System.currentTimeMillis() + 300;
+        env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return System.currentTimeMillis() >= until; }
+        }, 1000);
+        checkFatal(FakeMediation.loadsStarted.get() == before,
+                (FakeMediation.loadsStarted.get() - before) + " loads started while offline at cycle " + i);
+        checkFatal(networkStat("held") == UNITS.length,
+                networkStat("held") + " units held while offline at cycle " + i);
+        // Replacing a held unit must take the old one out of the gate, or the
+        // reconnect burst would load it under the key that now names the new one.
+        env.call("createAdUnit", LuaState.table("key", UNITS[0], "format", UNITS[0], "adUnitId", "is"));
+        env.settle();
+        checkFatal(networkStat("held") == UNITS.length,
+                networkStat("held") + " units held after replacing one offline at cycle " + i);
+
+        long reconnected = System.nanoTime();
+        network.set(NetworkStateSource.UNMETERED);
+        env.settle();
+        checkFatal(networkStat("held") == UNITS.length - 1,
+                "reconnect released " + (UNITS.length - networkStat("held")) + " units in one burst at cycle " + i);
+        boolean released = env.pumpUntil(new BenchEnv.Condition() {
+            @Override
+            public boolean holds() { return networkStat("held") == 0; }
+        }, 2000);
+        long elapsedMs = (System.nanoTime() - reconnected) / 1000000L;
+        checkFatal(released, "held units not released 2 s after reconnect at cycle " + i);
+        checkFatal(elapsedMs >= (UNITS.length - 1) * RECONNECT_BURST_MS,
+                "held units released in " + elapsedMs + " ms after reconnect at cycle " + i);
+    }
+
+    private long networkStat(String name) {
+        LuaState.Table stats = (LuaState.Table) env.call("getStats")[0];
+        return ((Number) ((LuaState.Table) stats.get("network")).get(name)).longValue();
+    }
+
+    /** Drains the span buffer the way a game would and checks the export shape. */
+    private void exportTrace(int i) {
+        LuaState.Table trace = (LuaState.Table) env.call("getTrace", true)[0];
+        LuaState.Table spans = (LuaState.Table) trace.get("spans");
+        int n = spans.length();
+        checkFatal(n > 0, "getTrace() returned no spans at cycle " + i);
+        for (int k = 1; k <= n; k++) {
+            LuaState.Table span = (LuaState.Table) spans.get(k);
+            checkFatal(span.get("name") != null && span.get("ph") != null && span.get("ts") != null,
+                    "malformed span " + span + " at cycle " + i);
+        }
+        traceSpans  += n;
+        traceDropped = Math.max(traceDropped, ((Number) trace.get("dropped")).longValue());
+    }
+
+    private void sample(int i) {
+        maxRefs         = Math.max(maxRefs, env.L.liveRefs());
+        maxRuntimeTasks = Math.max(maxRuntimeTasks, env.runtime.pendingTasks());
+        maxLooperTasks  = Math.max(maxLooperTasks, Looper.getMainLooper().pendingTasks());
+        if (maxRefs > MAX_LIVE_REFS) fail("live Lua refs reached " + maxRefs + " at cycle " + i, true);
+        if (maxRuntimeTasks > MAX_RUNTIME_TASKS) fail("runtime queue reached " + maxRuntimeTasks + " at cycle " + i, true);
+        if (maxLooperTasks > MAX_LOOPER_TASKS) fail("UI looper queue reached " + maxLooperTasks + " at cycle " + i, true);
+    }
+
+    // -------------------------------------------------------------------------
+
+    /** Thrown by a fatal failure to stop the cycles; run() still reports. */
+    private static final class Abort extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Abort() { super(null, null, false, false); }
+    }
+
+    /** Records a failure; the run continues. */
+    private void check(boolean ok, String message) {
+        if (!ok) fail(message, false);
+    }
+
+    /** Records a failure and stops the cycles: later ones would build on a broken state. */
+    private void checkFatal(boolean ok, String message) {
+        if (!ok) fail(message, true);
+    }
+
+    private void fail(String message, boolean fatal) {
+        // One line per distinct problem; a bound crossed once stays crossed.
+        if (failures.size() < 20 && !failures.contains(message)) failures.add(message);
+        if (fatal) throw new Abort();
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    private void report(long elapsedNanos, int measured, long heapGrowth, int liveAds) {
+        double seconds = elapsedNanos / 1e9;
+        if (measured > 0) {
+            System.out.printf("cycles     %d measured in %.2f s (%.0f cycles/s), %d inits%n",
+                    measured, seconds, measured / seconds, inits);
+        } else {
+            System.out.printf("cycles     stopped during warm-up, %d inits%n", inits);
+        }
+        System.out.printf("ads        %d shows, %d loads requested, %d unavailable; backend %d loads, %d filled, %d objects%n",
+                shows, loads, unavailable, FakeMediation.loadsStarted.get(), FakeMediation.loadsFilled.get(),
+                FakeMediation.adsCreated.get());
+        System.out.printf("events     %d delivered (%.0f/s)%n", events, (measured > 0) ? latency.seen / seconds : 0.0);
+        System.out.printf("latency    callback -> listener: %s%n", latency.describe());
+        System.out.printf("requests   %s%n", results);
+        if (settings.tracing) {
+            System.out.printf("trace      %d spans exported, at most %d dropped between exports%n",
+                    traceSpans, traceDropped);
+        }
+        System.out.printf("bounds     max refs %d, max runtime tasks %d, max UI looper tasks %d%n",
+                maxRefs, maxRuntimeTasks, maxLooperTasks);
+        System.out.printf("end state  refs %d, heap growth %.1f MB, live ad objects %d, log warnings %d, errors %d%n",
+                env.L.liveRefs(), heapGrowth / 1048576.0, liveAds, Log.warnings.get(), Log.errors.get());
+        if (failures.isEmpty()) {
+            System.out.println("PASS");
+        } else {
+            for (String f : failures) System.out.println("FAIL  " + f);
+            System.out.printf("rerun      with the same options and --seed=%d%n", settings.seed);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package android.app;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+public class Activity extends Context {
+
+    private final Handler main = new Handler(Looper.getMainLooper());
+
+    public void runOnUiThread(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        } else {
+            main.post(action);
+        }
+    }
+}
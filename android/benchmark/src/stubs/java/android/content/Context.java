@@ -0,0 +1,40 @@
+package android.content;
+
+import java.io.File;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stand-in application context: files go to a temp directory, no system
+ * services, and registered ComponentCallbacks can be driven with
+ * {@link #trimMemory(int)}.
+ */
+public class Context {
+
+    public static final String CONNECTIVITY_SERVICE = "connectivity";
+
+    private final CopyOnWriteArrayList<ComponentCallbacks> callbacks = new CopyOnWriteArrayList<>();
+
+    public Object getSystemService(String name) { return null; }
+
+    public Context getApplicationContext() { return this; }
+
+    public File getFilesDir() {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "ironsource-bench");
+        dir.mkdirs();
+        return dir;
+    }
+
+    public void registerComponentCallbacks(ComponentCallbacks callback) { callbacks.add(callback); }
+
+    public void unregisterComponentCallbacks(ComponentCallbacks callback) { callbacks.remove(callback); }
+
+    // --- harness only ---
+
+    public int componentCallbackCount() { return callbacks.size(); }
+
+    public void trimMemory(int level) {
+        for (ComponentCallbacks c : callbacks) {
+            if (c instanceof ComponentCallbacks2) ((ComponentCallbacks2) c).onTrimMemory(level);
+        }
+    }
+}
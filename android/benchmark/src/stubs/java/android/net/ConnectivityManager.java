@@ -0,0 +1,19 @@
+package android.net;
+
+/** Inert stand-in; the benchmark context never hands one out. */
+public class ConnectivityManager {
+
+    public static class NetworkCallback {
+        public void onAvailable(Network network) {}
+        public void onLost(Network network) {}
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities caps) {}
+    }
+
+    public void registerDefaultNetworkCallback(NetworkCallback callback) {}
+    public void registerNetworkCallback(NetworkRequest request, NetworkCallback callback) {}
+    public void unregisterNetworkCallback(NetworkCallback callback) {}
+    public Network getActiveNetwork() { return null; }
+    public NetworkCapabilities getNetworkCapabilities(Network network) { return null; }
+    public NetworkInfo getActiveNetworkInfo() { return null; }
+    public boolean isActiveNetworkMetered() { return false; }
+}
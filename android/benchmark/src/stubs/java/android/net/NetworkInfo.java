@@ -0,0 +1,5 @@
+package android.net;
+
+public class NetworkInfo {
+    public boolean isConnected() { return false; }
+}
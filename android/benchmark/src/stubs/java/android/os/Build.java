@@ -0,0 +1,15 @@
+package android.os;
+
+/** Reports API level 0 so the plugin takes its pre-N / pre-Q code paths on the JVM. */
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = 0;
+    }
+
+    public static class VERSION_CODES {
+        public static final int LOLLIPOP = 21;
+        public static final int M        = 23;
+        public static final int N        = 24;
+        public static final int Q        = 29;
+    }
+}
@@ -0,0 +1,84 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/** Posts runnables to its looper's executor; removeCallbacks cancels them. */
+public class Handler {
+
+    private final Looper looper;
+    /** Posted runnables that have not run yet. Guarded by {@code this}. */
+    private final Map<Runnable, List<Task>> posted = new HashMap<>();
+
+    private final class Task implements Runnable {
+        final Runnable r;
+        ScheduledFuture<?> future;
+
+        Task(Runnable r) { this.r = r; }
+
+        @Override
+        public void run() {
+            synchronized (Handler.this) {
+                List<Task> list = posted.get(r);
+                if (list == null || !list.remove(this)) return;   // removed meanwhile
+                if (list.isEmpty()) posted.remove(r);
+            }
+            r.run();
+        }
+    }
+
+    public Handler() {
+        this(Looper.myLooper());
+    }
+
+    public Handler(Looper looper) {
+        if (looper == null) throw new IllegalStateException("no looper");
+        this.looper = looper;
+    }
+
+    public final boolean post(Runnable r) { return postDelayed(r, 0); }
+
+    public final boolean postAtTime(Runnable r, long uptimeMillis) {
+        return postDelayed(r, uptimeMillis - SystemClock.uptimeMillis());
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        Task t = new Task(r);
+        synchronized (this) {
+            try {
+                t.future = looper.executor.schedule(t, Math.max(0L, delayMillis), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                return false;   // looper quit
+            }
+            List<Task> list = posted.get(r);
+            if (list == null) posted.put(r, list = new ArrayList<>(1));
+            list.add(t);
+        }
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        List<Task> list;
+        synchronized (this) {
+            list = posted.remove(r);
+        }
+        if (list == null) return;
+        for (Task t : list) t.future.cancel(false);
+    }
+
+    public final Looper getLooper() { return looper; }
+
+    // --- harness only ---
+
+    /** Runnables posted through this handler that have not run or been removed. */
+    public final synchronized int pendingCount() {
+        int n = 0;
+        for (List<Task> list : posted.values()) n += list.size();
+        return n;
+    }
+}
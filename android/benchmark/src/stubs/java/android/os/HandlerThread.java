@@ -0,0 +1,31 @@
+package android.os;
+
+/** The looper owns the thread; this object only names it. */
+public class HandlerThread extends Thread {
+
+    private volatile Looper looper;
+
+    public HandlerThread(String name) {
+        super(name);
+    }
+
+    public HandlerThread(String name, int priority) {
+        super(name);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (looper == null) looper = new Looper(getName());
+    }
+
+    public Looper getLooper() { return looper; }
+
+    public boolean quitSafely() {
+        Looper l = looper;
+        if (l == null) return false;
+        l.quitSafely();
+        return true;
+    }
+
+    public boolean quit() { return quitSafely(); }
+}
@@ -0,0 +1,81 @@
+package android.os;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A looper is a single daemon thread draining a scheduled executor. The main
+ * looper stands in for the UI thread: the fake SDK delivers its callbacks there
+ * and the plugin's main-thread Handlers post to it.
+ */
+public final class Looper {
+
+    private static final ThreadLocal<Looper> CURRENT = new ThreadLocal<>();
+    private static Looper main;
+
+    final ScheduledThreadPoolExecutor executor;
+    private final MessageQueue queue = new MessageQueue(this);
+    private volatile Thread thread;
+
+    Looper(final String name) {
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        CURRENT.set(Looper.this);
+                        r.run();
+                    }
+                }, name);
+                t.setDaemon(true);
+                thread = t;
+                return t;
+            }
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.prestartCoreThread();
+    }
+
+    public static synchronized Looper getMainLooper() {
+        if (main == null) main = new Looper("main");
+        return main;
+    }
+
+    public static Looper myLooper() { return CURRENT.get(); }
+
+    public static MessageQueue myQueue() {
+        Looper l = myLooper();
+        return (l != null) ? l.queue : null;
+    }
+
+    public MessageQueue getQueue() { return queue; }
+
+    public Thread getThread() { return thread; }
+
+    public void quitSafely() { executor.shutdown(); }
+
+    // --- harness only ---
+
+    /** Blocks until everything already posted without a delay has run. */
+    public void sync() {
+        if (myLooper() == this) return;
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {}
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // quit
+        }
+    }
+
+    /** Tasks waiting to run, delayed ones included. */
+    public int pendingTasks() { return executor.getQueue().size(); }
+}
@@ -0,0 +1,24 @@
+package android.os;
+
+/** Idle handlers run once, after whatever is queued ahead of them. */
+public final class MessageQueue {
+
+    public interface IdleHandler {
+        boolean queueIdle();
+    }
+
+    private final Looper looper;
+
+    MessageQueue(Looper looper) {
+        this.looper = looper;
+    }
+
+    public void addIdleHandler(final IdleHandler handler) {
+        looper.executor.execute(new Runnable() {
+            @Override
+            public void run() { handler.queueIdle(); }
+        });
+    }
+
+    public void removeIdleHandler(IdleHandler handler) {}
+}
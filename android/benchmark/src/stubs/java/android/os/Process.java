@@ -0,0 +1,11 @@
+package android.os;
+
+public class Process {
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+
+    /** One process per JVM; the value only has to be stable. */
+    public static int myPid() { return 1; }
+
+    /** Java thread ids stand in for kernel tids; unique while the thread lives. */
+    public static int myTid() { return (int) Thread.currentThread().getId(); }
+}
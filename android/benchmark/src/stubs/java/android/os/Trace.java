@@ -0,0 +1,12 @@
+package android.os;
+
+/** No systrace on the JVM. */
+public final class Trace {
+    private Trace() {}
+
+    public static void beginSection(String sectionName) {}
+    public static void endSection() {}
+    public static void beginAsyncSection(String methodName, int cookie) {}
+    public static void endAsyncSection(String methodName, int cookie) {}
+    public static boolean isEnabled() { return false; }
+}
@@ -0,0 +1,40 @@
+package android.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts warnings and errors; prints them only with -Dironsource.log=true so
+ * benchmark output stays readable.
+ */
+public final class Log {
+
+    private static final boolean PRINT = Boolean.getBoolean("ironsource.log");
+
+    public static final AtomicLong warnings = new AtomicLong();
+    public static final AtomicLong errors   = new AtomicLong();
+
+    private Log() {}
+
+    public static int d(String tag, String msg) { return print("D", tag, msg); }
+
+    public static int i(String tag, String msg) { return print("I", tag, msg); }
+
+    public static int w(String tag, String msg) {
+        warnings.incrementAndGet();
+        return print("W", tag, msg);
+    }
+
+    public static int e(String tag, String msg) {
+        errors.incrementAndGet();
+        return print("E", tag, msg);
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return e(tag, msg + ": " + tr);
+    }
+
+    private static int print(String level, String tag, String msg) {
+        if (PRINT) System.err.println(level + "/" + tag + ": " + msg);
+        return 0;
+    }
+}
@@ -0,0 +1,3 @@
+package com.ansca.corona;
+
+public class CoronaActivity extends android.app.Activity {}
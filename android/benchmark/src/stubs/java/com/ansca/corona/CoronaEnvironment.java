@@ -0,0 +1,28 @@
+package com.ansca.corona;
+
+import android.content.Context;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public final class CoronaEnvironment {
+
+    private static volatile CoronaActivity activity;
+    private static final CopyOnWriteArrayList<CoronaRuntimeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private CoronaEnvironment() {}
+
+    public static CoronaActivity getCoronaActivity() { return activity; }
+
+    public static Context getApplicationContext() { return activity; }
+
+    public static void addRuntimeListener(CoronaRuntimeListener listener) { listeners.add(listener); }
+
+    // --- harness only ---
+
+    public static void setCoronaActivity(CoronaActivity a) { activity = a; }
+
+    public static List<CoronaRuntimeListener> runtimeListeners() { return listeners; }
+
+    public static void clearRuntimeListeners() { listeners.clear(); }
+}
@@ -0,0 +1,51 @@
+package com.ansca.corona;
+
+import com.naef.jnlua.JavaFunction;
+import com.naef.jnlua.LuaState;
+
+public final class CoronaLua {
+
+    public static final int REFNIL = -1;
+    public static final int NOREF  = -2;
+
+    private CoronaLua() {}
+
+    public static int newRef(LuaState L, int index) { return L.ref(index); }
+
+    public static void deleteRef(LuaState L, int ref) { L.unref(ref); }
+
+    public static int normalize(LuaState L, int index) { return L.absIndex(index); }
+
+    /** A function, or a table with a method named {@code name}. */
+    public static boolean isListener(LuaState L, int index, String name) {
+        Object v = L.valueAt(index);
+        if (v instanceof JavaFunction) return true;
+        return v instanceof LuaState.Table && ((LuaState.Table) v).get(name) instanceof JavaFunction;
+    }
+
+    public static void newEvent(LuaState L, String name) {
+        L.newTable();
+        L.pushString(name);
+        L.setField(-2, "name");
+    }
+
+    /** Pops the event table and calls the listener {@code ref} with it. */
+    public static void dispatchEvent(LuaState L, int ref, int nresults) throws Exception {
+        L.rawGet(LuaState.REGISTRYINDEX, ref);           // event, listener
+        Object listener = L.valueAt(-1);
+        if (listener instanceof JavaFunction) {
+            L.insert(-2);                                // listener, event
+            L.call(1, nresults);
+        } else if (listener instanceof LuaState.Table) {
+            L.getField(-2, "name");
+            String name = L.toString(-1);
+            L.pop(1);
+            L.getField(-1, name);                        // event, table, method
+            L.insert(-3);                                // method, event, table
+            L.insert(-2);                                // method, table, event
+            L.call(2, nresults);
+        } else {
+            L.pop(2);
+        }
+    }
+}
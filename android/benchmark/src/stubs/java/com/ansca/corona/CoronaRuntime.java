@@ -0,0 +1,72 @@
+package com.ansca.corona;
+
+import com.naef.jnlua.LuaState;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns a LuaState and the queue of tasks sent to it. Whoever calls
+ * {@link #runFrame()} is the runtime thread: each frame runs the tasks that
+ * were queued when it started, so tasks sent from inside a frame wait for the
+ * next one, as in Corona.
+ */
+public class CoronaRuntime {
+
+    private static final Map<LuaState, CoronaRuntime> BY_STATE = new WeakHashMap<>();
+
+    private final LuaState L;
+    private final ConcurrentLinkedQueue<CoronaRuntimeTask> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public CoronaRuntime(LuaState L) {
+        this.L = L;
+        synchronized (BY_STATE) {
+            BY_STATE.put(L, this);
+        }
+    }
+
+    static CoronaRuntime of(LuaState L) {
+        synchronized (BY_STATE) {
+            return BY_STATE.get(L);
+        }
+    }
+
+    public LuaState getLuaState() { return L; }
+
+    public boolean isRunning() { return running; }
+
+    // --- harness only ---
+
+    void send(CoronaRuntimeTask task) {
+        if (!running) return;
+        tasks.add(task);
+        queued.incrementAndGet();
+    }
+
+    /** Runs one frame's worth of tasks on the calling thread. @return tasks run */
+    public int runFrame() {
+        int n = queued.get();
+        int ran = 0;
+        while (ran < n) {
+            CoronaRuntimeTask t = tasks.poll();
+            if (t == null) break;
+            queued.decrementAndGet();
+            ran++;
+            t.executeUsing(this);
+        }
+        return ran;
+    }
+
+    /** Tasks sent and not yet run. */
+    public int pendingTasks() { return queued.get(); }
+
+    public void stop() {
+        running = false;
+        tasks.clear();
+        queued.set(0);
+    }
+}
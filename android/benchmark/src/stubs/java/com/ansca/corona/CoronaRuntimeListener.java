@@ -0,0 +1,9 @@
+package com.ansca.corona;
+
+public interface CoronaRuntimeListener {
+    void onLoaded(CoronaRuntime runtime);
+    void onStarted(CoronaRuntime runtime);
+    void onSuspended(CoronaRuntime runtime);
+    void onResumed(CoronaRuntime runtime);
+    void onExiting(CoronaRuntime runtime);
+}
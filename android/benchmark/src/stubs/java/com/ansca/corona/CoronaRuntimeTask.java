@@ -0,0 +1,5 @@
+package com.ansca.corona;
+
+public interface CoronaRuntimeTask {
+    void executeUsing(CoronaRuntime runtime);
+}
@@ -0,0 +1,24 @@
+package com.ansca.corona;
+
+import com.naef.jnlua.LuaState;
+
+public class CoronaRuntimeTaskDispatcher {
+
+    private final CoronaRuntime runtime;
+
+    public CoronaRuntimeTaskDispatcher(LuaState L) {
+        this(CoronaRuntime.of(L));
+    }
+
+    public CoronaRuntimeTaskDispatcher(CoronaRuntime runtime) {
+        this.runtime = runtime;
+    }
+
+    public boolean isRuntimeAvailable() { return runtime != null && runtime.isRunning(); }
+
+    public boolean isRuntimeUnavailable() { return !isRuntimeAvailable(); }
+
+    public void send(CoronaRuntimeTask task) {
+        if (runtime != null) runtime.send(task);
+    }
+}
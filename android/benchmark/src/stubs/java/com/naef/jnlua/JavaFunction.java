@@ -0,0 +1,5 @@
+package com.naef.jnlua;
+
+public interface JavaFunction {
+    int invoke(LuaState L);
+}
@@ -0,0 +1,10 @@
+package com.naef.jnlua;
+
+public interface JavaReflector {
+    enum Metamethod {
+        INDEX, NEWINDEX, LEN, EQ, LT, LE, UNM, ADD, SUB, MUL, DIV, MOD, POW, CONCAT, CALL,
+        IPAIRS, PAIRS, TOSTRING, JAVAFIELDS, JAVAMETHODS, JAVAPROPERTIES
+    }
+
+    JavaFunction getMetamethod(Metamethod metamethod);
+}
@@ -0,0 +1,7 @@
+package com.naef.jnlua;
+
+public class LuaRuntimeException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public LuaRuntimeException(String message) { super(message); }
+}
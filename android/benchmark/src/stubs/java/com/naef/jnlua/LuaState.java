@@ -0,0 +1,358 @@
+package com.naef.jnlua;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A Lua state without Lua: a value stack, tables and a registry, enough to
+ * run the plugin's JavaFunctions from Java. Values are {@code null} (nil),
+ * Boolean, Double, String, {@link Table}, JavaFunction, or any other Java
+ * object (userdata). Metatables are not modelled.
+ */
+public class LuaState {
+
+    public static final int REGISTRYINDEX = -10000;
+
+    /** A Lua table. Numeric keys are normalised to Double. */
+    public static final class Table {
+        final LinkedHashMap<Object, Object> map = new LinkedHashMap<>();
+
+        public Object get(Object key) { return map.get(normalize(key)); }
+
+        public Table put(Object key, Object value) {
+            key = normalize(key);
+            value = normalize(value);
+            if (value == null) map.remove(key); else map.put(key, value);
+            return this;
+        }
+
+        public int length() {
+            int n = 0;
+            while (map.containsKey((double) (n + 1))) n++;
+            return n;
+        }
+
+        public int size() { return map.size(); }
+
+        @Override
+        public String toString() { return map.toString(); }
+    }
+
+    private final ArrayList<Object> stack = new ArrayList<>();
+    /** Stack position of index 1 in the current call frame. */
+    private int base;
+
+    private final Table registry = new Table();
+    private int nextRef = 1;
+    private int liveRefs;
+
+    // -------------------------------------------------------------------------
+    // Harness helpers
+    // -------------------------------------------------------------------------
+
+    public static Object normalize(Object v) {
+        if (v instanceof Number && !(v instanceof Double)) return ((Number) v).doubleValue();
+        return v;
+    }
+
+    /** Builds a table from alternating keys and values. */
+    public static Table table(Object... keysAndValues) {
+        Table t = new Table();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) t.put(keysAndValues[i], keysAndValues[i + 1]);
+        return t;
+    }
+
+    /** Builds an array-style table. */
+    public static Table array(Object... values) {
+        Table t = new Table();
+        for (int i = 0; i < values.length; i++) t.put(i + 1, values[i]);
+        return t;
+    }
+
+    /** Calls {@code f(args...)} and returns every result. The stack is left as it was. */
+    public Object[] call(JavaFunction f, Object... args) {
+        push(f);
+        for (Object a : args) push(a);
+        int top = stack.size() - args.length - 1;
+        call(args.length, -1);
+        Object[] results = new Object[stack.size() - top];
+        for (int i = 0; i < results.length; i++) results[i] = stack.get(top + i);
+        truncate(top);
+        return results;
+    }
+
+    public void push(Object value) { stack.add(normalize(value)); }
+
+    /** The value at {@code index}, or null. */
+    public Object valueAt(int index) {
+        if (index == REGISTRYINDEX) return registry;
+        int a = position(index);
+        return (a >= base && a < stack.size()) ? stack.get(a) : null;
+    }
+
+    /** References created with CoronaLua.newRef and not yet deleted. */
+    public int liveRefs() { return liveRefs; }
+
+    /** Total stack depth across all frames. */
+    public int stackDepth() { return stack.size(); }
+
+    public int ref(int index) {
+        Object v = valueAt(index);
+        if (v == null) return -1;
+        int ref = nextRef++;
+        registry.put((double) ref, v);
+        liveRefs++;
+        return ref;
+    }
+
+    public void unref(int ref) {
+        if (ref <= 0) return;
+        if (registry.map.remove((double) ref) != null) liveRefs--;
+    }
+
+    private int position(int index) {
+        if (index > 0) return base + index - 1;
+        return stack.size() + index;
+    }
+
+    private void truncate(int size) {
+        while (stack.size() > size) stack.remove(stack.size() - 1);
+    }
+
+    private Object pop() {
+        return stack.remove(stack.size() - 1);
+    }
+
+    private Table tableAt(int index) {
+        Object v = valueAt(index);
+        if (!(v instanceof Table)) throw new LuaRuntimeException("table expected at " + index + ", got " + v);
+        return (Table) v;
+    }
+
+    private static boolean isUserdata(Object v) {
+        return v != null && !(v instanceof Boolean) && !(v instanceof Double) && !(v instanceof String)
+                && !(v instanceof Table) && !(v instanceof JavaFunction);
+    }
+
+    // -------------------------------------------------------------------------
+    // JNLua API used by the plugin
+    // -------------------------------------------------------------------------
+
+    public void newTable() { stack.add(new Table()); }
+
+    public void newTable(int arrayCount, int recordCount) { stack.add(new Table()); }
+
+    public void pushJavaFunction(JavaFunction f) { stack.add(f); }
+
+    public void pushJavaObject(Object o) { stack.add(o); }
+
+    public void pushString(String s) { stack.add(s); }
+
+    public void pushBoolean(boolean b) { stack.add(b); }
+
+    public void pushNumber(double d) { stack.add(d); }
+
+    public void pushInteger(int i) { stack.add((double) i); }
+
+    public void pushNil() { stack.add(null); }
+
+    public void pushValue(int index) { stack.add(valueAt(index)); }
+
+    public void setField(int index, String key) {
+        Table t = tableAt(index);
+        t.put(key, pop());
+    }
+
+    public void getField(int index, String key) {
+        Object v = valueAt(index);
+        stack.add((v instanceof Table) ? ((Table) v).get(key) : null);
+    }
+
+    public void pop(int n) { truncate(stack.size() - n); }
+
+    public int getTop() { return stack.size() - base; }
+
+    public void setTop(int n) {
+        int size = (n >= 0) ? base + n : stack.size() + n + 1;
+        truncate(size);
+        while (stack.size() < size) stack.add(null);
+    }
+
+    public void insert(int index) {
+        int a = position(index);
+        stack.add(a, pop());
+    }
+
+    public int absIndex(int index) {
+        return (index > 0 || index <= REGISTRYINDEX) ? index : getTop() + index + 1;
+    }
+
+    private boolean exists(int index) {
+        if (index == REGISTRYINDEX) return true;
+        int a = position(index);
+        return a >= base && a < stack.size();
+    }
+
+    public boolean isString(int index) {
+        Object v = valueAt(index);
+        return v instanceof String || v instanceof Double;
+    }
+
+    public boolean isNumber(int index) {
+        Object v = valueAt(index);
+        if (v instanceof Double) return true;
+        if (!(v instanceof String)) return false;
+        try {
+            Double.parseDouble((String) v);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public boolean isBoolean(int index) { return valueAt(index) instanceof Boolean; }
+
+    public boolean isTable(int index) { return valueAt(index) instanceof Table; }
+
+    public boolean isFunction(int index) { return valueAt(index) instanceof JavaFunction; }
+
+    public boolean isNil(int index) { return exists(index) && valueAt(index) == null; }
+
+    public boolean isNoneOrNil(int index) { return valueAt(index) == null; }
+
+    public boolean isJavaObject(int index, Class<?> type) {
+        Object v = valueAt(index);
+        return isUserdata(v) && type.isInstance(v);
+    }
+
+    public String toString(int index) {
+        Object v = valueAt(index);
+        if (v instanceof String) return (String) v;
+        if (v instanceof Double) {
+            double d = (Double) v;
+            return (d == Math.rint(d) && !Double.isInfinite(d)) ? Long.toString((long) d) : Double.toString(d);
+        }
+        return null;
+    }
+
+    public double toNumber(int index) {
+        Object v = valueAt(index);
+        if (v instanceof Double) return (Double) v;
+        if (v instanceof String) {
+            try {
+                return Double.parseDouble((String) v);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    public int toInteger(int index) { return (int) toNumber(index); }
+
+    public boolean toBoolean(int index) {
+        Object v = valueAt(index);
+        return v != null && !Boolean.FALSE.equals(v);
+    }
+
+    public Object toJavaObject(int index, Class<?> type) {
+        Object v = valueAt(index);
+        return type.isInstance(v) ? v : null;
+    }
+
+    public LuaType type(int index) {
+        if (!exists(index)) return null;
+        Object v = valueAt(index);
+        if (v == null) return LuaType.NIL;
+        if (v instanceof Boolean) return LuaType.BOOLEAN;
+        if (v instanceof Double) return LuaType.NUMBER;
+        if (v instanceof String) return LuaType.STRING;
+        if (v instanceof Table) return LuaType.TABLE;
+        if (v instanceof JavaFunction) return LuaType.FUNCTION;
+        return LuaType.USERDATA;
+    }
+
+    public void rawSet(int index) {
+        Table t = tableAt(index);
+        Object value = pop();
+        Object key = pop();
+        t.put(key, value);
+    }
+
+    public void rawSet(int index, int key) {
+        Table t = tableAt(index);
+        t.put(key, pop());
+    }
+
+    public void rawGet(int index) {
+        Table t = tableAt(index);
+        Object key = pop();
+        stack.add(t.get(key));
+    }
+
+    public void rawGet(int index, int key) {
+        stack.add(tableAt(index).get(key));
+    }
+
+    public boolean rawEqual(int index1, int index2) {
+        Object a = valueAt(index1);
+        Object b = valueAt(index2);
+        if (a == b) return true;
+        if (a instanceof Double || a instanceof String || a instanceof Boolean) return a.equals(b);
+        return false;
+    }
+
+    public int length(int index) {
+        Object v = valueAt(index);
+        if (v instanceof Table) return ((Table) v).length();
+        if (v instanceof String) return ((String) v).length();
+        return 0;
+    }
+
+    public boolean next(int index) {
+        Table t = tableAt(index);
+        Object key = pop();
+        Iterator<Map.Entry<Object, Object>> it = t.map.entrySet().iterator();
+        if (key != null) {
+            while (it.hasNext()) {
+                if (it.next().getKey().equals(key)) break;
+            }
+        }
+        if (!it.hasNext()) return false;
+        Map.Entry<Object, Object> e = it.next();
+        stack.add(e.getKey());
+        stack.add(e.getValue());
+        return true;
+    }
+
+    public void call(int nargs, int nresults) {
+        int fn = stack.size() - nargs - 1;
+        Object f = stack.get(fn);
+        if (!(f instanceof JavaFunction)) throw new LuaRuntimeException("attempt to call a " + type(-nargs - 1));
+        int savedBase = base;
+        base = fn + 1;
+        int n;
+        try {
+            n = ((JavaFunction) f).invoke(this);
+        } finally {
+            base = savedBase;
+        }
+        int first = stack.size() - n;
+        ArrayList<Object> results = new ArrayList<>(stack.subList(first, stack.size()));
+        truncate(fn);
+        int want = (nresults < 0) ? results.size() : nresults;
+        for (int i = 0; i < want; i++) stack.add(i < results.size() ? results.get(i) : null);
+    }
+
+    public int checkInteger(int index) { return toInteger(index); }
+
+    public int checkInteger(int index, int defaultValue) {
+        return isNoneOrNil(index) ? defaultValue : toInteger(index);
+    }
+
+    public String checkString(int index) { return toString(index); }
+
+    public double checkNumber(int index) { return toNumber(index); }
+}
@@ -0,0 +1,3 @@
+package com.naef.jnlua;
+
+public enum LuaType { NIL, BOOLEAN, LIGHTUSERDATA, NUMBER, STRING, TABLE, FUNCTION, USERDATA, THREAD }
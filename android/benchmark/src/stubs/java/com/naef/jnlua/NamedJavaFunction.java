@@ -0,0 +1,5 @@
+package com.naef.jnlua;
+
+public interface NamedJavaFunction extends JavaFunction {
+    String getName();
+}
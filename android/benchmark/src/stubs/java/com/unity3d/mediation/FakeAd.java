@@ -0,0 +1,52 @@
+package com.unity3d.mediation;
+
+import android.app.Activity;
+
+/**
+ * Behaviour shared by the fake interstitial and rewarded ad objects: loads
+ * and shows are scripted by {@link FakeMediation}; the {@code fire*} methods
+ * invoke the installed listener directly, on the calling thread.
+ */
+public abstract class FakeAd {
+
+    private final String adUnitId;
+    private final String format;
+    volatile boolean ready;
+    volatile boolean loading;
+
+    protected FakeAd(String adUnitId, String format) {
+        this.adUnitId = adUnitId;
+        this.format = format;
+        FakeMediation.created(this);
+    }
+
+    public String getAdUnitId() { return adUnitId; }
+
+    public void loadAd() { FakeMediation.load(this); }
+
+    public boolean isAdReady() { return ready; }
+
+    public void showAd(Activity activity) { FakeMediation.show(this, null); }
+
+    public void showAd(Activity activity, String placementName) { FakeMediation.show(this, placementName); }
+
+    /** A fresh ad info for this ad object. */
+    public LevelPlayAdInfo info(String placementName) {
+        return new LevelPlayAdInfo(adUnitId, format, placementName, 0.0125);
+    }
+
+    public abstract boolean hasListener();
+
+    public abstract void fireLoaded(LevelPlayAdInfo info);
+
+    public abstract void fireLoadFailed(LevelPlayAdError error);
+
+    public abstract void fireDisplayed(LevelPlayAdInfo info);
+
+    public abstract void fireDisplayFailed(LevelPlayAdError error, LevelPlayAdInfo info);
+
+    /** Rewarded ads only; a no-op for interstitials. */
+    public abstract void fireRewarded(String rewardName, int amount, LevelPlayAdInfo info);
+
+    public abstract void fireClosed(LevelPlayAdInfo info);
+}
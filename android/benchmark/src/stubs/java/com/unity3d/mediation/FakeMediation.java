@@ -0,0 +1,209 @@
+package com.unity3d.mediation;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scripted mediation backend behind the fake LevelPlay classes. Callbacks are
+ * posted to the main looper, like the real SDK, after the configured latency.
+ * Outcomes come from one seeded Random, so a single-threaded driver sees the
+ * same sequence of fills and failures on every run.
+ */
+public final class FakeMediation {
+
+    /** Read on every call; change fields between runs, not during one. */
+    public static final class Config {
+        /** No load/show/init callbacks at all; drivers fire them by hand. */
+        public volatile boolean manual;
+
+        public volatile boolean initCallback = true;
+        public volatile boolean initSucceeds = true;
+        public volatile long    initLatencyMs;
+
+        public volatile long    loadLatencyMs;
+        public volatile long    loadJitterMs;
+        /** Probability a load fills. */
+        public volatile double  fillRate = 1.0;
+        /** Every n-th load fails regardless of fillRate (0 = off). */
+        public volatile int     failEveryNthLoad;
+
+        public volatile long    displayLatencyMs;
+        /** Time between display and close. */
+        public volatile long    showDurationMs;
+        /** Probability a show of a ready ad fails to display. */
+        public volatile double  showFailRate;
+        /** Probability a displayed ad never closes (stuck full-screen ad). */
+        public volatile double  neverCloseRate;
+
+        public volatile long    seed = 42;
+    }
+
+    public static final Config config = new Config();
+
+    public static final AtomicLong initsStarted  = new AtomicLong();
+    public static final AtomicLong adsCreated    = new AtomicLong();
+    public static final AtomicLong loadsStarted  = new AtomicLong();
+    public static final AtomicLong loadsFilled   = new AtomicLong();
+    public static final AtomicLong loadsFailed   = new AtomicLong();
+    public static final AtomicLong showsStarted  = new AtomicLong();
+    public static final AtomicLong showsFailed   = new AtomicLong();
+    public static final AtomicLong adsClosed     = new AtomicLong();
+
+    private static final ConcurrentHashMap<String, FakeAd> latest = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<FakeAd> collected = new ReferenceQueue<>();
+    private static final Set<Reference<FakeAd>> alive =
+            Collections.synchronizedSet(new HashSet<Reference<FakeAd>>());
+    private static Handler main;
+    private static Random random = new Random(config.seed);
+
+    private FakeMediation() {}
+
+    /** Restores defaults, reseeds and zeroes the counters. */
+    public static synchronized void reset() {
+        Config d = new Config();
+        config.manual           = d.manual;
+        config.initCallback     = d.initCallback;
+        config.initSucceeds     = d.initSucceeds;
+        config.initLatencyMs    = d.initLatencyMs;
+        config.loadLatencyMs    = d.loadLatencyMs;
+        config.loadJitterMs     = d.loadJitterMs;
+        config.fillRate         = d.fillRate;
+        config.failEveryNthLoad = d.failEveryNthLoad;
+        config.displayLatencyMs = d.displayLatencyMs;
+        config.showDurationMs   = d.showDurationMs;
+        config.showFailRate     = d.showFailRate;
+        config.neverCloseRate   = d.neverCloseRate;
+        config.seed             = d.seed;
+        reseed();
+        for (AtomicLong c : new AtomicLong[] {
+                initsStarted, adsCreated, loadsStarted, loadsFilled, loadsFailed, showsStarted, showsFailed, adsClosed }) {
+            c.set(0);
+        }
+        latest.clear();
+        liveAds();
+        alive.clear();
+    }
+
+    public static synchronized void reseed() { random = new Random(config.seed); }
+
+    /** The most recently created ad object for {@code adUnitId}, or null. */
+    public static FakeAd latest(String adUnitId) { return latest.get(adUnitId); }
+
+    /** Ad objects not yet garbage collected (call after a GC for a meaningful count). */
+    public static int liveAds() {
+        Reference<? extends FakeAd> r;
+        while ((r = collected.poll()) != null) alive.remove(r);
+        return alive.size();
+    }
+
+    // -------------------------------------------------------------------------
+
+    static void created(FakeAd ad) {
+        adsCreated.incrementAndGet();
+        latest.put(ad.getAdUnitId(), ad);
+        alive.add(new WeakReference<>(ad, collected));
+    }
+
+    private static synchronized Handler main() {
+        if (main == null) main = new Handler(Looper.getMainLooper());
+        return main;
+    }
+
+    private static synchronized double roll() { return random.nextDouble(); }
+
+    private static synchronized long jitter(long max) {
+        return (max > 0) ? (long) (random.nextDouble() * max) : 0;
+    }
+
+    static void init(final LevelPlayInitListener listener) {
+        initsStarted.incrementAndGet();
+        if (config.manual || !config.initCallback) return;
+        final boolean ok = config.initSucceeds;
+        main().postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                if (ok) listener.onInitSuccess(new LevelPlayConfiguration());
+                else    listener.onInitFailed(new LevelPlayInitError(508, "init failed"));
+            }
+        }, config.initLatencyMs);
+    }
+
+    static void load(final FakeAd ad) {
+        if (config.manual || ad.loading) return;
+        if (ad.ready) {
+            // Already loaded: answer again, like the SDK does.
+            main().post(new Runnable() {
+                @Override
+                public void run() {
+                    if (ad.ready && ad.hasListener()) ad.fireLoaded(ad.info(null));
+                }
+            });
+            return;
+        }
+        ad.loading = true;
+        long n = loadsStarted.incrementAndGet();
+        int nth = config.failEveryNthLoad;
+        final boolean fill = (nth <= 0 || n % nth != 0) && roll() < config.fillRate;
+        long delay = config.loadLatencyMs + jitter(config.loadJitterMs);
+        main().postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                ad.loading = false;
+                if (!ad.hasListener()) return;
+                if (fill) {
+                    ad.ready = true;
+                    loadsFilled.incrementAndGet();
+                    ad.fireLoaded(ad.info(null));
+                } else {
+                    loadsFailed.incrementAndGet();
+                    ad.fireLoadFailed(new LevelPlayAdError(ad.getAdUnitId(), 509, "No fill"));
+                }
+            }
+        }, delay);
+    }
+
+    static void show(final FakeAd ad, final String placement) {
+        if (config.manual) return;
+        showsStarted.incrementAndGet();
+        boolean wasReady = ad.ready;
+        ad.ready = false;   // shown or not, the loaded creative is used up
+        if (!wasReady || roll() < config.showFailRate) {
+            showsFailed.incrementAndGet();
+            main().post(new Runnable() {
+                @Override
+                public void run() {
+                    ad.fireDisplayFailed(new LevelPlayAdError(ad.getAdUnitId(), 510, "show failed"),
+                            ad.info(placement));
+                }
+            });
+            return;
+        }
+        final boolean closes = roll() >= config.neverCloseRate;
+        final long duration = config.showDurationMs;
+        main().postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                ad.fireDisplayed(ad.info(placement));
+                ad.fireRewarded("coins", 10, ad.info(placement));
+                if (!closes) return;
+                main().postDelayed(new Runnable() {
+                    @Override
+                    public void run() {
+                        adsClosed.incrementAndGet();
+                        ad.fireClosed(ad.info(placement));
+                    }
+                }, duration);
+            }
+        }, config.displayLatencyMs);
+    }
+}
@@ -0,0 +1,19 @@
+package com.unity3d.mediation;
+
+import android.content.Context;
+
+public final class LevelPlay {
+    private LevelPlay() {}
+
+    public static void init(Context context, LevelPlayInitRequest request, LevelPlayInitListener listener) {
+        FakeMediation.init(listener);
+    }
+
+    public static void setConsent(boolean consent) {}
+
+    public static void setMetaData(String key, String value) {}
+
+    public static void setAdaptersDebug(boolean enabled) {}
+
+    public static boolean setDynamicUserId(String userId) { return true; }
+}
@@ -0,0 +1,19 @@
+package com.unity3d.mediation;
+
+public class LevelPlayAdError {
+    private final String adUnitId;
+    private final int code;
+    private final String message;
+
+    public LevelPlayAdError(String adUnitId, int code, String message) {
+        this.adUnitId = adUnitId;
+        this.code = code;
+        this.message = message;
+    }
+
+    public String getErrorMessage() { return message; }
+
+    public int getErrorCode() { return code; }
+
+    public String getAdUnitId() { return adUnitId; }
+}
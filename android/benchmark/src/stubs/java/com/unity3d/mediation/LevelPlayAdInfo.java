@@ -0,0 +1,33 @@
+package com.unity3d.mediation;
+
+public class LevelPlayAdInfo {
+    private final String adUnitId;
+    private final String adFormat;
+    private final String placementName;
+    private final Double revenue;
+    /** When the fake SDK created this info, i.e. fired the callback carrying it. */
+    private final long createdNanos = System.nanoTime();
+
+    public LevelPlayAdInfo(String adUnitId, String adFormat, String placementName, Double revenue) {
+        this.adUnitId = adUnitId;
+        this.adFormat = adFormat;
+        this.placementName = placementName;
+        this.revenue = revenue;
+    }
+
+    public String getAdUnitId()      { return adUnitId; }
+    public String getAdUnitName()    { return adUnitId; }
+    public String getAdFormat()      { return adFormat; }
+    public String getPlacementName() { return placementName; }
+    public String getAuctionId()     { return "auction"; }
+    public String getCountry()       { return "US"; }
+    public String getAb()            { return "A"; }
+    public String getSegmentName()   { return null; }
+    public String getAdNetwork()     { return "fake"; }
+    public String getInstanceName()  { return "fake-instance"; }
+    /** The creation time in nanoseconds, so harnesses can time delivery. */
+    public String getInstanceId()    { return Long.toString(createdNanos); }
+    public Double getRevenue()       { return revenue; }
+    public String getPrecision()     { return "BID"; }
+    public String getEncryptedCPM()  { return null; }
+}
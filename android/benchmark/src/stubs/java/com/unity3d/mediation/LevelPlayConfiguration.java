@@ -0,0 +1,3 @@
+package com.unity3d.mediation;
+
+public class LevelPlayConfiguration {}
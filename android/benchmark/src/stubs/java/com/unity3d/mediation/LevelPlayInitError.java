@@ -0,0 +1,15 @@
+package com.unity3d.mediation;
+
+public class LevelPlayInitError {
+    private final int code;
+    private final String message;
+
+    public LevelPlayInitError(int code, String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    public String getErrorMessage() { return message; }
+
+    public int getErrorCode() { return code; }
+}
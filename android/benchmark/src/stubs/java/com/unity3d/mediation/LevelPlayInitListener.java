@@ -0,0 +1,6 @@
+package com.unity3d.mediation;
+
+public interface LevelPlayInitListener {
+    void onInitSuccess(LevelPlayConfiguration configuration);
+    void onInitFailed(LevelPlayInitError error);
+}
@@ -0,0 +1,25 @@
+package com.unity3d.mediation;
+
+public class LevelPlayInitRequest {
+    final String appKey;
+    final String userId;
+
+    LevelPlayInitRequest(String appKey, String userId) {
+        this.appKey = appKey;
+        this.userId = userId;
+    }
+
+    public static class Builder {
+        private final String appKey;
+        private String userId;
+
+        public Builder(String appKey) { this.appKey = appKey; }
+
+        public Builder withUserId(String userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        public LevelPlayInitRequest build() { return new LevelPlayInitRequest(appKey, userId); }
+    }
+}
@@ -0,0 +1,34 @@
+package com.unity3d.mediation.interstitial;
+
+import com.unity3d.mediation.FakeAd;
+import com.unity3d.mediation.LevelPlayAdError;
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+public class LevelPlayInterstitialAd extends FakeAd {
+
+    private volatile LevelPlayInterstitialAdListener listener;
+
+    public LevelPlayInterstitialAd(String adUnitId) {
+        super(adUnitId, "interstitial");
+    }
+
+    public void setListener(LevelPlayInterstitialAdListener listener) { this.listener = listener; }
+
+    public String getAdId() { return Integer.toHexString(System.identityHashCode(this)); }
+
+    @Override public boolean hasListener() { return listener != null; }
+
+    @Override public void fireLoaded(LevelPlayAdInfo info) { listener.onAdLoaded(info); }
+
+    @Override public void fireLoadFailed(LevelPlayAdError error) { listener.onAdLoadFailed(error); }
+
+    @Override public void fireDisplayed(LevelPlayAdInfo info) { listener.onAdDisplayed(info); }
+
+    @Override public void fireDisplayFailed(LevelPlayAdError error, LevelPlayAdInfo info) {
+        listener.onAdDisplayFailed(error, info);
+    }
+
+    @Override public void fireRewarded(String rewardName, int amount, LevelPlayAdInfo info) {}
+
+    @Override public void fireClosed(LevelPlayAdInfo info) { listener.onAdClosed(info); }
+}
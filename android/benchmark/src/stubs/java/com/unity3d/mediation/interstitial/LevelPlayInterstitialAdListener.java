@@ -0,0 +1,14 @@
+package com.unity3d.mediation.interstitial;
+
+import com.unity3d.mediation.LevelPlayAdError;
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+public interface LevelPlayInterstitialAdListener {
+    void onAdLoaded(LevelPlayAdInfo adInfo);
+    void onAdLoadFailed(LevelPlayAdError error);
+    void onAdDisplayed(LevelPlayAdInfo adInfo);
+    void onAdDisplayFailed(LevelPlayAdError error, LevelPlayAdInfo adInfo);
+    void onAdClicked(LevelPlayAdInfo adInfo);
+    void onAdClosed(LevelPlayAdInfo adInfo);
+    void onAdInfoChanged(LevelPlayAdInfo adInfo);
+}
@@ -0,0 +1,15 @@
+package com.unity3d.mediation.rewarded;
+
+public class LevelPlayReward {
+    private final String name;
+    private final int amount;
+
+    public LevelPlayReward(String name, int amount) {
+        this.name = name;
+        this.amount = amount;
+    }
+
+    public String getName() { return name; }
+
+    public int getAmount() { return amount; }
+}
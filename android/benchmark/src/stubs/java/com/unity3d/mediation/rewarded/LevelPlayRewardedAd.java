@@ -0,0 +1,34 @@
+package com.unity3d.mediation.rewarded;
+
+import com.unity3d.mediation.FakeAd;
+import com.unity3d.mediation.LevelPlayAdError;
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+public class LevelPlayRewardedAd extends FakeAd {
+
+    private volatile LevelPlayRewardedAdListener listener;
+
+    public LevelPlayRewardedAd(String adUnitId) {
+        super(adUnitId, "rewarded");
+    }
+
+    public void setListener(LevelPlayRewardedAdListener listener) { this.listener = listener; }
+
+    @Override public boolean hasListener() { return listener != null; }
+
+    @Override public void fireLoaded(LevelPlayAdInfo info) { listener.onAdLoaded(info); }
+
+    @Override public void fireLoadFailed(LevelPlayAdError error) { listener.onAdLoadFailed(error); }
+
+    @Override public void fireDisplayed(LevelPlayAdInfo info) { listener.onAdDisplayed(info); }
+
+    @Override public void fireDisplayFailed(LevelPlayAdError error, LevelPlayAdInfo info) {
+        listener.onAdDisplayFailed(error, info);
+    }
+
+    @Override public void fireRewarded(String rewardName, int amount, LevelPlayAdInfo info) {
+        listener.onAdRewarded(new LevelPlayReward(rewardName, amount), info);
+    }
+
+    @Override public void fireClosed(LevelPlayAdInfo info) { listener.onAdClosed(info); }
+}
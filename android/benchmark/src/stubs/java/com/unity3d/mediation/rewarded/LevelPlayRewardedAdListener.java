@@ -0,0 +1,15 @@
+package com.unity3d.mediation.rewarded;
+
+import com.unity3d.mediation.LevelPlayAdError;
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+public interface LevelPlayRewardedAdListener {
+    void onAdLoaded(LevelPlayAdInfo adInfo);
+    void onAdLoadFailed(LevelPlayAdError error);
+    void onAdDisplayed(LevelPlayAdInfo adInfo);
+    void onAdDisplayFailed(LevelPlayAdError error, LevelPlayAdInfo adInfo);
+    void onAdRewarded(LevelPlayReward reward, LevelPlayAdInfo adInfo);
+    void onAdClicked(LevelPlayAdInfo adInfo);
+    void onAdClosed(LevelPlayAdInfo adInfo);
+    void onAdInfoChanged(LevelPlayAdInfo adInfo);
+}
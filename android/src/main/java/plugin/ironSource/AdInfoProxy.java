@@ -0,0 +1,135 @@
+// ----------------------------------------------------------------------------
+// AdInfoProxy.java  –  lazy Lua view of a LevelPlayAdInfo
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.JavaFunction;
+import com.naef.jnlua.JavaReflector;
+import com.naef.jnlua.LuaState;
+
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+/**
+ * Pushed into events as {@code event.adInfo}: a single userdata instead of a
+ * table with a dozen copied fields. Each field is read from the wrapped
+ * {@link LevelPlayAdInfo} only when Lua indexes it, so events whose adInfo is
+ * never touched cost one push. {@code event.adInfo:toTable()} copies
+ * everything in one call when a plain table is needed.
+ *
+ *   adNetwork, revenue, precision, placementName, instanceName, instanceId,
+ *   adUnitId, adUnitName, adFormat, auctionId, country, ab, segmentName,
+ *   encryptedCPM
+ */
+final class AdInfoProxy implements JavaReflector {
+
+    static final String[] FIELDS = {
+            "adNetwork", "revenue", "precision", "placementName", "instanceName",
+            "instanceId", "adUnitId", "adUnitName", "adFormat", "auctionId",
+            "country", "ab", "segmentName", "encryptedCPM"
+    };
+
+    private final LevelPlayAdInfo info;
+
+    AdInfoProxy(LevelPlayAdInfo info) { this.info = info; }
+
+    @Override
+    public JavaFunction getMetamethod(Metamethod metamethod) {
+        switch (metamethod) {
+            case INDEX:    return INDEX_FN;
+            case TOSTRING: return TOSTRING_FN;
+            default:       return null;   // fall back to JNLua's default reflector
+        }
+    }
+
+    /** Pushes field {@code key}; nil for unknown keys or values the SDK left unset. */
+    void pushField(LuaState L, String key) {
+        push(L, get(key));
+    }
+
+    /** Pushes a table with every non-nil field. */
+    void pushTable(LuaState L) {
+        L.newTable(0, FIELDS.length);
+        for (String key : FIELDS) {
+            Object value = get(key);
+            if (value == null) continue;
+            push(L, value);
+            L.setField(-2, key);
+        }
+    }
+
+    private static void push(LuaState L, Object value) {
+        if (value instanceof Double) {
+            L.pushNumber((Double) value);
+        } else if (value != null) {
+            L.pushString(value.toString());
+        } else {
+            L.pushNil();
+        }
+    }
+
+    private Object get(String key) {
+        switch (key) {
+            case "adNetwork":     return info.getAdNetwork();
+            case "revenue":       return info.getRevenue();
+            case "precision":     return info.getPrecision();
+            case "placementName": return info.getPlacementName();
+            case "instanceName":  return info.getInstanceName();
+            case "instanceId":    return info.getInstanceId();
+            case "adUnitId":      return info.getAdUnitId();
+            case "adUnitName":    return info.getAdUnitName();
+            case "adFormat":      return info.getAdFormat();
+            case "auctionId":     return info.getAuctionId();
+            case "country":       return info.getCountry();
+            case "ab":            return info.getAb();
+            case "segmentName":   return info.getSegmentName();
+            case "encryptedCPM":  return info.getEncryptedCPM();
+            default:              return null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Metamethods (shared; the proxy arrives as argument 1)
+    // -------------------------------------------------------------------------
+
+    private static final JavaFunction INDEX_FN = new JavaFunction() {
+        @Override
+        public int invoke(LuaState L) {
+            AdInfoProxy self = (AdInfoProxy) L.toJavaObject(1, AdInfoProxy.class);
+            String key = L.isString(2) ? L.toString(2) : null;
+            if (self == null || key == null) {
+                L.pushNil();
+            } else if ("toTable".equals(key)) {
+                L.pushJavaFunction(TO_TABLE_FN);
+            } else {
+                self.pushField(L, key);
+            }
+            return 1;
+        }
+    };
+
+    private static final JavaFunction TO_TABLE_FN = new JavaFunction() {
+        @Override
+        public int invoke(LuaState L) {
+            AdInfoProxy self = L.isJavaObject(1, AdInfoProxy.class)
+                    ? (AdInfoProxy) L.toJavaObject(1, AdInfoProxy.class) : null;
+            if (self == null) {
+                L.pushNil();
+            } else {
+                self.pushTable(L);
+            }
+            return 1;
+        }
+    };
+
+    private static final JavaFunction TOSTRING_FN = new JavaFunction() {
+        @Override
+        public int invoke(LuaState L) {
+            AdInfoProxy self = (AdInfoProxy) L.toJavaObject(1, AdInfoProxy.class);
+            L.pushString(self == null ? "adInfo"
+                    : "adInfo(" + self.info.getAdNetwork() + ", " + self.info.getAdUnitId() + ")");
+            return 1;
+        }
+    };
+}
@@ -0,0 +1,763 @@
+// ----------------------------------------------------------------------------
+// AdUnit.java  –  pool of preloaded LevelPlay ad instances for one ad unit ID
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.app.Activity;
+import android.os.SystemClock;
+
+import com.unity3d.mediation.LevelPlayAdError;
+import com.unity3d.mediation.LevelPlayAdInfo;
+import com.unity3d.mediation.interstitial.LevelPlayInterstitialAd;
+import com.unity3d.mediation.interstitial.LevelPlayInterstitialAdListener;
+import com.unity3d.mediation.rewarded.LevelPlayReward;
+import com.unity3d.mediation.rewarded.LevelPlayRewardedAd;
+import com.unity3d.mediation.rewarded.LevelPlayRewardedAdListener;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * One LevelPlay ad unit (one ad unit ID under one Lua key) backed by {@code poolSize} independent ad instances.
+ *
+ * Ready instances are kept on a stack ordered by load time, so show() takes the
+ * freshest one in O(1). Instances older than the TTL are discarded (from the
+ * stale end of the stack) and replaced with a new object before reloading.
+ * All pool state is guarded by {@code this}; SDK calls happen outside the lock.
+ *
+ * The unit is the single owner of its {@link State}: every slot transition
+ * happens under the lock and republishes the aggregate state through a
+ * volatile field, so readers on other threads never take the lock.
+ */
+final class AdUnit {
+
+    enum Format {
+        INTERSTITIAL("interstitial"),
+        REWARDED("rewardedVideo");
+
+        /** Value used for the Lua event's {@code type} field. */
+        final String luaName;
+
+        Format(String luaName) { this.luaName = luaName; }
+
+        /** @return null for anything but "interstitial" / "rewardedVideo" */
+        static Format fromLua(String name) {
+            for (Format f : values()) {
+                if (f.luaName.equals(name)) return f;
+            }
+            return null;
+        }
+    }
+
+    enum State {
+        /** Nothing loaded, nothing in flight. */
+        IDLE,
+        /** A loadAd() is in flight and nothing is ready yet. */
+        LOADING,
+        /** At least one instance can be shown. */
+        READY,
+        /** An instance is on screen; further show() calls are coalesced. */
+        SHOWING,
+        /** Last load failed; the backoff scheduler owns the next attempt. */
+        BACKOFF;
+
+        final String luaName = name().toLowerCase(Locale.US);
+    }
+
+    /** SDK callbacks, tagged with the unit they belong to. */
+    interface Callbacks {
+        void onLoaded(AdUnit unit, LevelPlayAdInfo adInfo);
+        void onLoadFailed(AdUnit unit, LevelPlayAdError error);
+        void onDisplayed(AdUnit unit, LevelPlayAdInfo adInfo);
+        void onDisplayFailed(AdUnit unit, LevelPlayAdError error, LevelPlayAdInfo adInfo);
+        void onRewarded(AdUnit unit, LevelPlayReward reward, LevelPlayAdInfo adInfo);
+        void onClicked(AdUnit unit, LevelPlayAdInfo adInfo);
+        void onClosed(AdUnit unit, LevelPlayAdInfo adInfo);
+        void onInfoChanged(AdUnit unit, LevelPlayAdInfo adInfo);
+    }
+
+    /** Tuning shared by every unit created from one init() call. */
+    static final class Options {
+        /** Number of instances kept loaded (clamped to 1..MAX_POOL_SIZE). */
+        int     poolSize = 1;
+        /** How long a loaded instance may be shown; 0 disables expiry. */
+        long    ttlMillis;
+        /** Retry failed loads with exponential backoff. */
+        boolean autoReload = true;
+        long    reloadBaseDelayMillis = 2000;
+        long    reloadMaxDelayMillis  = 120000;
+        /** Connectivity gate shared by all units; null loads unconditionally. */
+        LoadGate gate;
+        /** Time refills after a show from the learned show cadence (see PreloadPlanner). */
+        boolean adaptivePreload;
+        long    preloadMinDelayMillis = 1000;
+        long    preloadMaxDelayMillis = 60000;
+
+        Options copy() {
+            Options o = new Options();
+            o.poolSize              = poolSize;
+            o.ttlMillis             = ttlMillis;
+            o.autoReload            = autoReload;
+            o.reloadBaseDelayMillis = reloadBaseDelayMillis;
+            o.reloadMaxDelayMillis  = reloadMaxDelayMillis;
+            o.gate                  = gate;
+            o.adaptivePreload       = adaptivePreload;
+            o.preloadMinDelayMillis = preloadMinDelayMillis;
+            o.preloadMaxDelayMillis = preloadMaxDelayMillis;
+            return o;
+        }
+    }
+
+    static final int MAX_POOL_SIZE = 4;
+
+    final Format format;
+    /** Lua-facing name: an alias from init()/createAdUnit(), or the ad unit ID. */
+    final String key;
+    final String adUnitId;
+    final AdUnitStats stats = new AdUnitStats();
+
+    private final Callbacks callbacks;
+    /** Tracer async span names; the cookie is the slot index. */
+    private final String loadSpan;
+    private final String showSpan;
+    private final long ttlMillis;
+    private final Slot[] slots;
+    /** READY slots, oldest first; the freshest is at the tail. */
+    private final ArrayDeque<Slot> ready;
+    /** Null when auto-reload is disabled. */
+    private final ReloadScheduler reloads;
+    /** Null when loads are not gated on connectivity. */
+    private final LoadGate gate;
+    /** Null unless adaptive preloading is enabled. */
+    private final PreloadPlanner preload;
+
+    private volatile State state = State.IDLE;
+    /** False until the SDK reports init success; no loadAd() is issued before that. */
+    private volatile boolean started;
+    /** Memory pressure: no loadAd() until {@link #resumeRefill()}. */
+    private volatile boolean refillPaused;
+    /**
+     * Readiness snapshot: elapsedRealtime() until which the freshest ready
+     * instance may be shown, 0 if none. One volatile long, so readers see a
+     * consistent value without the lock and without calling into the SDK.
+     */
+    private volatile long readyUntil;
+    /** elapsedRealtime() of the last takeReady(); guarded by {@code this}. */
+    private long showRequestedAt;
+
+    AdUnit(String key, Format format, String adUnitId, Options options, Callbacks callbacks) {
+        this.key       = key;
+        this.format    = format;
+        this.adUnitId  = adUnitId;
+        this.callbacks = callbacks;
+        this.loadSpan  = "ironSource.loadAd " + key;
+        this.showSpan  = "ironSource.show " + key;
+        this.ttlMillis = Math.max(0L, options.ttlMillis);
+        this.gate      = options.gate;
+        int size = Math.max(1, Math.min(MAX_POOL_SIZE, options.poolSize));
+        this.slots = new Slot[size];
+        this.ready = new ArrayDeque<>(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = (format == Format.INTERSTITIAL) ? new InterstitialSlot() : new RewardedSlot();
+            slots[i].index = i;
+        }
+        this.reloads = !options.autoReload ? null : new ReloadScheduler(
+                options.reloadBaseDelayMillis, options.reloadMaxDelayMillis, new Runnable() {
+                    @Override
+                    public void run() { refill(); }
+                });
+        this.preload = !options.adaptivePreload ? null : new PreloadPlanner(
+                options.preloadMinDelayMillis, options.preloadMaxDelayMillis, new Runnable() {
+                    @Override
+                    public void run() { refill(); }
+                });
+    }
+
+    // -------------------------------------------------------------------------
+    // Pool operations
+    // -------------------------------------------------------------------------
+
+    /** SDK initialised: begin preloading. */
+    void start() {
+        started = true;
+        requestLoad();
+    }
+
+    /** Lock-free read of the last published state. */
+    State getState() { return state; }
+
+    /** Null unless adaptive preloading is enabled. */
+    PreloadPlanner preload() { return preload; }
+
+    /**
+     * Load requested from outside (Lua, init). Coalesced while a load is already
+     * in flight, the pool is full, or a backoff retry is pending. Overrides a
+     * deferred adaptive refill.
+     *
+     * @return true if at least one loadAd() was issued
+     */
+    boolean requestLoad() {
+        State s = state;
+        if (s == State.BACKOFF || s == State.LOADING) return false;
+        if (preload != null) preload.cancel();
+        return refill() > 0;
+    }
+
+    /**
+     * Starts loading every empty slot, up to what the connectivity gate allows.
+     * Loads are asynchronous in the SDK.
+     *
+     * @return number of loadAd() calls issued
+     */
+    int refill() {
+        // Before start() a load request is implicit: start() preloads every unit.
+        // While refills are paused, resumeRefill() picks up whatever was skipped.
+        if (!started || refillPaused) return 0;
+        int limit = (gate != null) ? gate.limit() : Integer.MAX_VALUE;
+        boolean gated = false;
+        Slot[] toLoad = null;
+        int n = 0;
+        synchronized (this) {
+            if (!started) return 0;   // cleared since the check above
+            long now = SystemClock.elapsedRealtime();
+            pruneExpired(now);
+            int occupied = 0;
+            for (Slot s : slots) {
+                if (s.state != Slot.EMPTY) occupied++;
+            }
+            for (Slot s : slots) {
+                if (s.state != Slot.EMPTY) continue;
+                if (occupied >= limit) {
+                    gated = true;   // the gate refills us when the network allows
+                    break;
+                }
+                occupied++;
+                s.state = Slot.LOADING;
+                s.loadStartedAt = now;
+                if (toLoad == null) toLoad = new Slot[slots.length];
+                toLoad[n++] = s;
+            }
+            publishState();
+        }
+        if (gated) gate.hold(this, limit);
+        if (n > 0) stats.loadAttempts.addAndGet(n);
+        for (int i = 0; i < n; i++) {
+            if (Tracer.enabled) Tracer.beginAsync(loadSpan, toLoad[i].index);
+            toLoad[i].load();
+        }
+        return n;
+    }
+
+    /**
+     * Removes and returns the freshest ready instance, marking it SHOWING.
+     *
+     * @return null if nothing ready (expired instances are recycled and reloaded)
+     *         or another instance is already showing
+     */
+    Slot takeReady() {
+        Slot taken = null;
+        long now = SystemClock.elapsedRealtime();
+        for (;;) {
+            Slot s;
+            synchronized (this) {
+                if (state == State.SHOWING) break;
+                pruneExpired(now);
+                s = ready.pollLast();
+                if (s == null) break;
+                // Reserved while the SDK is asked: no other show, prune or drop can take it.
+                s.state = Slot.SHOWING;
+                s.displayed = false;
+                publishState();
+            }
+            boolean adReady = s.isReady();
+            synchronized (this) {
+                if (s.state != Slot.SHOWING) {
+                    // Cleared while we asked.
+                    publishState();
+                    break;
+                }
+                if (adReady) {
+                    showRequestedAt = now;
+                    if (Tracer.enabled) Tracer.beginAsync(showSpan, s.index);
+                    stats.shows.incrementAndGet();
+                    taken = s;
+                    break;
+                }
+                // SDK dropped it behind our back; recycle.
+                s.recycle();
+                publishState();
+            }
+        }
+        if (preload == null) {
+            refill();
+        } else {
+            // A hit refills when the show ends; a miss needs an ad now.
+            preload.onShowRequested(taken != null);
+            if (taken == null) refill();
+        }
+        return taken;
+    }
+
+    /**
+     * Show watchdog: nothing was displayed in time. Frees the showing slot with
+     * a fresh ad object so the unit can show again; late callbacks from the old
+     * object are still delivered but no longer affect the pool.
+     *
+     * @return false if nothing was showing
+     */
+    boolean abandonShow() {
+        boolean released = false;
+        synchronized (this) {
+            for (Slot s : slots) {
+                if (s.state != Slot.SHOWING) continue;
+                if (Tracer.enabled) Tracer.endAsync(showSpan, s.index);
+                s.recycle();
+                released = true;
+            }
+            publishState();
+        }
+        if (!released) return false;
+        stats.showFailures.incrementAndGet();
+        refill();
+        return true;
+    }
+
+    /** True if the ad being shown has already reported onAdDisplayed. */
+    synchronized boolean isDisplayed() {
+        for (Slot s : slots) {
+            if (s.state == Slot.SHOWING && s.displayed) return true;
+        }
+        return false;
+    }
+
+    /** True if at least one unexpired instance is loaded. Plain memory read. */
+    boolean isAvailable() {
+        long until = readyUntil;
+        return until != 0 && SystemClock.elapsedRealtime() < until;
+    }
+
+    synchronized int readyCount() { return ready.size(); }
+
+    int poolSize() { return slots.length; }
+
+    /**
+     * Drops every instance, pending retry and gated load, and stops the unit:
+     * nothing refills it until {@link #start()} is called again. Used when the
+     * unit is replaced or the plugin shuts down, so callbacks still in flight
+     * can no longer reload it under a key that now names another unit.
+     */
+    void clear() {
+        synchronized (this) {
+            started = false;
+            if (reloads != null) reloads.cancel();
+            if (preload != null) preload.cancel();
+            ready.clear();
+            for (Slot s : slots) s.recycle();
+            publishState();
+        }
+        // Outside our lock, like every other call into the gate.
+        if (gate != null) gate.remove(this);
+    }
+
+    // -------------------------------------------------------------------------
+    // Memory pressure
+    // -------------------------------------------------------------------------
+
+    void pauseRefill() { refillPaused = true; }
+
+    /** Lifts {@link #pauseRefill()} and reloads whatever was dropped meanwhile. */
+    void resumeRefill() {
+        refillPaused = false;
+        refill();
+    }
+
+    /**
+     * Discards loaded instances so their creatives can be collected.
+     *
+     * @return number of instances dropped
+     */
+    int dropPreloaded() {
+        synchronized (this) {
+            int n = ready.size();
+            Slot s;
+            while ((s = ready.pollFirst()) != null) s.recycle();
+            publishState();
+            return n;
+        }
+    }
+
+    /**
+     * Discards every ad object not on screen, including in-flight loads (their
+     * late callbacks are ignored). Slots build a fresh object on their next load.
+     *
+     * @return number of objects released
+     */
+    int releaseAdObjects() {
+        synchronized (this) {
+            int n = 0;
+            ready.clear();
+            for (Slot s : slots) {
+                if (s.state == Slot.SHOWING || !s.hasAd()) continue;
+                s.recycle();
+                n++;
+            }
+            publishState();
+            return n;
+        }
+    }
+
+    /** Holds back scheduled retries and deferred preloads (app in background). */
+    void pauseReloads() {
+        if (reloads != null) reloads.pause();
+        if (preload != null) preload.pause();
+    }
+
+    void resumeReloads() {
+        if (reloads != null) reloads.resume();
+        if (preload != null) preload.resume();
+    }
+
+    /** Caller holds the lock. Derives the unit state from its slots, highest wins. */
+    private void publishState() {
+        Slot freshest = ready.peekLast();
+        readyUntil = (freshest == null) ? 0L
+                : (ttlMillis == 0) ? Long.MAX_VALUE : freshest.loadedAt + ttlMillis;
+
+        boolean loading = false;
+        for (Slot s : slots) {
+            if (s.state == Slot.SHOWING) {
+                state = State.SHOWING;
+                return;
+            }
+            if (s.state == Slot.LOADING) loading = true;
+        }
+        if (!ready.isEmpty()) {
+            state = State.READY;
+        } else if (loading) {
+            state = State.LOADING;
+        } else if (reloads != null && reloads.isPending()) {
+            state = State.BACKOFF;
+        } else {
+            state = State.IDLE;
+        }
+    }
+
+    /** Caller holds the lock. Stale instances sit at the head of the deque. */
+    private void pruneExpired(long now) {
+        if (ttlMillis == 0) return;
+        Slot s;
+        while ((s = ready.peekFirst()) != null && now - s.loadedAt >= ttlMillis) {
+            ready.pollFirst();
+            s.recycle();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Slot callbacks (SDK thread)
+    // -------------------------------------------------------------------------
+
+    private void slotLoaded(Slot s, LevelPlayAdInfo adInfo) {
+        synchronized (this) {
+            if (s.state != Slot.LOADING) return;   // recycled while in flight
+            s.state    = Slot.READY;
+            s.loadedAt = SystemClock.elapsedRealtime();
+            stats.loadLatency.record(s.loadedAt - s.loadStartedAt);
+            if (preload != null) preload.onLoaded(s.loadedAt - s.loadStartedAt);
+            if (Tracer.enabled) Tracer.endAsync(loadSpan, s.index);
+            ready.addLast(s);
+            if (reloads != null) reloads.reset();
+            publishState();
+        }
+        stats.fills.incrementAndGet();
+        callbacks.onLoaded(this, adInfo);
+    }
+
+    private void slotLoadFailed(Slot s, LevelPlayAdError error) {
+        synchronized (this) {
+            if (s.state == Slot.LOADING) s.state = Slot.EMPTY;
+            if (Tracer.enabled) Tracer.endAsync(loadSpan, s.index);
+            if (reloads != null) reloads.onFailure();
+            publishState();
+        }
+        stats.loadFailures.incrementAndGet();
+        callbacks.onLoadFailed(this, error);
+    }
+
+    private void slotDisplayed(Slot s, LevelPlayAdInfo adInfo) {
+        long requestedAt;
+        synchronized (this) {
+            requestedAt = showRequestedAt;
+            if (s.state == Slot.SHOWING) s.displayed = true;
+        }
+        if (Tracer.enabled) Tracer.endAsync(showSpan, s.index);
+        stats.displays.incrementAndGet();
+        stats.showLatency.record(SystemClock.elapsedRealtime() - requestedAt);
+        callbacks.onDisplayed(this, adInfo);
+    }
+
+    private void slotDisplayFailed(Slot s, LevelPlayAdError error, LevelPlayAdInfo adInfo) {
+        if (Tracer.enabled) Tracer.endAsync(showSpan, s.index);
+        stats.showFailures.incrementAndGet();
+        callbacks.onDisplayFailed(this, error, adInfo);
+        slotShowEnded(s);
+    }
+
+    private void slotClicked(LevelPlayAdInfo adInfo) {
+        stats.clicks.incrementAndGet();
+        callbacks.onClicked(this, adInfo);
+    }
+
+    private void slotClosed(Slot s, LevelPlayAdInfo adInfo) {
+        stats.closes.incrementAndGet();
+        callbacks.onClosed(this, adInfo);
+        slotShowEnded(s);
+    }
+
+    private void slotShowEnded(Slot s) {
+        synchronized (this) {
+            if (s.state == Slot.SHOWING) s.state = Slot.EMPTY;
+            publishState();
+        }
+        if (preload == null || preload.plan() == 0) refill();
+    }
+
+    // -------------------------------------------------------------------------
+    // Slot: one LevelPlay ad object
+    // -------------------------------------------------------------------------
+
+    abstract class Slot {
+        static final int EMPTY   = 0;
+        static final int LOADING = 1;
+        static final int READY   = 2;
+        static final int SHOWING = 3;
+
+        /** Position in the pool; the cookie of this slot's trace spans. */
+        int  index;
+        /** Guarded by the owning AdUnit. */
+        int  state = EMPTY;
+        /** SHOWING and onAdDisplayed has arrived; guarded by the owning AdUnit. */
+        boolean displayed;
+        long loadStartedAt;
+        long loadedAt;
+
+        abstract void load();
+        /** Asks the SDK; caller must not hold the unit lock. */
+        abstract boolean isReady();
+        /** @return false if the instance was recycled in the meantime */
+        abstract boolean show(Activity activity, String placement);
+        /** Discards the SDK object so the next load starts from a fresh instance. */
+        abstract void recycle();
+        /** Caller holds the unit lock. */
+        abstract boolean hasAd();
+    }
+
+    /**
+     * Callbacks from an SDK object that has since been recycled are ignored:
+     * loads, displays and closes alike, so a show released by
+     * {@link #abandonShow} or {@link #clear} cannot end the slot's next show.
+     * Rewards are still delivered; the player earned them either way.
+     */
+    private boolean isCurrent(Slot s, Object owner) {
+        synchronized (this) {
+            return owner == ((s instanceof InterstitialSlot)
+                    ? ((InterstitialSlot) s).ad : ((RewardedSlot) s).ad);
+        }
+    }
+
+    private final class InterstitialSlot extends Slot {
+        /** Guarded by the owning AdUnit. */
+        LevelPlayInterstitialAd ad;
+
+        @Override
+        void load() {
+            LevelPlayInterstitialAd a;
+            synchronized (AdUnit.this) {
+                if (ad == null) {
+                    ad = new LevelPlayInterstitialAd(adUnitId);
+                    ad.setListener(new Listener(ad));
+                }
+                a = ad;
+            }
+            a.loadAd();
+        }
+
+        @Override
+        boolean isReady() {
+            LevelPlayInterstitialAd a;
+            synchronized (AdUnit.this) { a = ad; }
+            return a != null && a.isAdReady();
+        }
+
+        @Override
+        boolean show(Activity activity, String placement) {
+            LevelPlayInterstitialAd a;
+            synchronized (AdUnit.this) { a = ad; }
+            if (a == null) return false;
+            if (placement != null && !placement.isEmpty()) {
+                a.showAd(activity, placement);
+            } else {
+                a.showAd(activity);
+            }
+            return true;
+        }
+
+        @Override
+        void recycle() {
+            ad    = null;
+            state = EMPTY;
+        }
+
+        @Override
+        boolean hasAd() { return ad != null; }
+
+        private final class Listener implements LevelPlayInterstitialAdListener {
+            private final LevelPlayInterstitialAd owner;
+
+            Listener(LevelPlayInterstitialAd owner) { this.owner = owner; }
+
+            private boolean stale() { return !isCurrent(InterstitialSlot.this, owner); }
+
+            @Override
+            public void onAdLoaded(LevelPlayAdInfo adInfo) {
+                if (stale()) return;
+                slotLoaded(InterstitialSlot.this, adInfo);
+            }
+
+            @Override
+            public void onAdLoadFailed(LevelPlayAdError error) {
+                if (stale()) return;
+                slotLoadFailed(InterstitialSlot.this, error);
+            }
+
+            @Override
+            public void onAdDisplayed(LevelPlayAdInfo adInfo) {
+                if (stale()) return;
+                slotDisplayed(InterstitialSlot.this, adInfo);
+            }
+
+            @Override
+            public void onAdDisplayFailed(LevelPlayAdError error, LevelPlayAdInfo adInfo) {
+                if (stale()) return;
+                slotDisplayFailed(InterstitialSlot.this, error, adInfo);
+            }
+
+            @Override
+            public void onAdClicked(LevelPlayAdInfo adInfo) {
+                slotClicked(adInfo);
+            }
+
+            @Override
+            public void onAdClosed(LevelPlayAdInfo adInfo) {
+                if (stale()) return;
+                slotClosed(InterstitialSlot.this, adInfo);
+            }
+
+            @Override
+            public void onAdInfoChanged(LevelPlayAdInfo adInfo) {
+                callbacks.onInfoChanged(AdUnit.this, adInfo);
+            }
+        }
+    }
+
+    private final class RewardedSlot extends Slot {
+        /** Guarded by the owning AdUnit. */
+        LevelPlayRewardedAd ad;
+
+        @Override
+        void load() {
+            LevelPlayRewardedAd a;
+            synchronized (AdUnit.this) {
+                if (ad == null) {
+                    ad = new LevelPlayRewardedAd(adUnitId);
+                    ad.setListener(new Listener(ad));
+                }
+                a = ad;
+            }
+            a.loadAd();
+        }
+
+        @Override
+        boolean isReady() {
+            LevelPlayRewardedAd a;
+            synchronized (AdUnit.this) { a = ad; }
+            return a != null && a.isAdReady();
+        }
+
+        @Override
+        boolean show(Activity activity, String placement) {
+            LevelPlayRewardedAd a;
+            synchronized (AdUnit.this) { a = ad; }
+            if (a == null) return false;
+            if (placement != null && !placement.isEmpty()) {
+                a.showAd(activity, placement);
+            } else {
+                a.showAd(activity);
+            }
+            return true;
+        }
+
+        @Override
+        void recycle() {
+            ad    = null;
+            state = EMPTY;
+        }
+
+        @Override
+        boolean hasAd() { return ad != null; }
+
+        private final class Listener implements LevelPlayRewardedAdListener {
+            private final LevelPlayRewardedAd owner;
+
+            Listener(LevelPlayRewardedAd owner) { this.owner = owner; }
+
+            private boolean stale() { return !isCurrent(RewardedSlot.this, owner); }
+
+            @Override
+            public void onAdLoaded(LevelPlayAdInfo adInfo) {
+                if (stale()) return;
+                slotLoaded(RewardedSlot.this, adInfo);
+            }
+
+            @Override
+            public void onAdLoadFailed(LevelPlayAdError error) {
+                if (stale()) return;
+                slotLoadFailed(RewardedSlot.this, error);
+            }
+
+            @Override
+            public void onAdDisplayed(LevelPlayAdInfo adInfo) {
+                if (stale()) return;
+                slotDisplayed(RewardedSlot.this, adInfo);
+            }
+
+            @Override
+            public void onAdDisplayFailed(LevelPlayAdError error, LevelPlayAdInfo adInfo) {
+                if (stale()) return;
+                slotDisplayFailed(RewardedSlot.this, error, adInfo);
+            }
+
+            @Override
+            public void onAdRewarded(LevelPlayReward reward, LevelPlayAdInfo adInfo) {
+                callbacks.onRewarded(AdUnit.this, reward, adInfo);
+            }
+
+            @Override
+            public void onAdClicked(LevelPlayAdInfo adInfo) {
+                slotClicked(adInfo);
+            }
+
+            @Override
+            public void onAdClosed(LevelPlayAdInfo adInfo) {
+                if (stale()) return;
+                slotClosed(RewardedSlot.this, adInfo);
+            }
+
+            @Override
+            public void onAdInfoChanged(LevelPlayAdInfo adInfo) {
+                callbacks.onInfoChanged(AdUnit.this, adInfo);
+            }
+        }
+    }
+}
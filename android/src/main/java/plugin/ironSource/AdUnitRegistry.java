@@ -0,0 +1,81 @@
+// ----------------------------------------------------------------------------
+// AdUnitRegistry.java  –  ad units keyed by Lua alias or LevelPlay ad unit ID
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * O(1) lookup of {@link AdUnit}s by their Lua key or by their ad unit ID.
+ *
+ * Reads (get/all) are lock-free and may come from any thread; writes are
+ * serialised on {@code this} and republish a copy-on-write array so callers
+ * can iterate every unit without holding a lock.
+ */
+final class AdUnitRegistry {
+
+    private static final AdUnit[] NONE = new AdUnit[0];
+
+    private final ConcurrentHashMap<String, AdUnit> index = new ConcurrentHashMap<>();
+    private volatile AdUnit[] all = NONE;
+
+    /** @param keyOrId the unit's Lua key, or its LevelPlay ad unit ID */
+    AdUnit get(String keyOrId) {
+        return (keyOrId == null) ? null : index.get(keyOrId);
+    }
+
+    /** Snapshot of every registered unit, in registration order. Do not modify. */
+    AdUnit[] all() { return all; }
+
+    boolean isEmpty() { return all.length == 0; }
+
+    /**
+     * Registers {@code unit} under its key and, if not already taken, its ad
+     * unit ID.
+     *
+     * @return the unit previously registered under the same key, or null
+     */
+    synchronized AdUnit put(AdUnit unit) {
+        AdUnit old = index.get(unit.key);
+        if (old != null && !old.key.equals(unit.key)) {
+            old = null;   // key only matched another unit's ID; keys take precedence
+        }
+        if (old != null) {
+            remove(old);
+        }
+        index.put(unit.key, unit);
+        index.putIfAbsent(unit.adUnitId, unit);
+
+        AdUnit[] next = new AdUnit[all.length + 1];
+        System.arraycopy(all, 0, next, 0, all.length);
+        next[all.length] = unit;
+        all = next;
+        return old;
+    }
+
+    /** Removes every unit and returns them, so the caller can release them. */
+    synchronized AdUnit[] clear() {
+        AdUnit[] old = all;
+        index.clear();
+        all = NONE;
+        return old;
+    }
+
+    /** Caller holds the lock. */
+    private void remove(AdUnit unit) {
+        index.remove(unit.key, unit);
+        index.remove(unit.adUnitId, unit);
+        ArrayList<AdUnit> rest = new ArrayList<>(all.length);
+        for (AdUnit u : all) {
+            if (u != unit) rest.add(u);
+        }
+        // Another unit may share the ID; let the first remaining one answer for it.
+        for (AdUnit u : rest) {
+            index.putIfAbsent(u.adUnitId, u);
+        }
+        all = rest.toArray(NONE);
+    }
+}
@@ -0,0 +1,70 @@
+// ----------------------------------------------------------------------------
+// AdUnitStats.java  –  per-ad-unit load / fill / show counters and latencies
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.LuaState;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Field metrics for one ad unit. Written from SDK threads, read from Lua. */
+final class AdUnitStats {
+
+    final AtomicLong loadAttempts = new AtomicLong();
+    final AtomicLong fills        = new AtomicLong();
+    final AtomicLong loadFailures = new AtomicLong();
+    final AtomicLong shows        = new AtomicLong();
+    final AtomicLong displays     = new AtomicLong();
+    final AtomicLong showFailures = new AtomicLong();
+    final AtomicLong clicks       = new AtomicLong();
+    final AtomicLong closes       = new AtomicLong();
+
+    /** loadAd() → onAdLoaded */
+    final LatencyHistogram loadLatency = new LatencyHistogram();
+    /** showAd() → onAdDisplayed */
+    final LatencyHistogram showLatency = new LatencyHistogram();
+
+    void reset() {
+        loadAttempts.set(0);
+        fills.set(0);
+        loadFailures.set(0);
+        shows.set(0);
+        displays.set(0);
+        showFailures.set(0);
+        clicks.set(0);
+        closes.set(0);
+        loadLatency.reset();
+        showLatency.reset();
+    }
+
+    /** Pushes the stats table for this unit onto the Lua stack. */
+    void push(LuaState L) {
+        L.newTable();
+
+        pushCounter(L, "loadAttempts", loadAttempts);
+        pushCounter(L, "fills", fills);
+        pushCounter(L, "loadFailures", loadFailures);
+        pushCounter(L, "shows", shows);
+        pushCounter(L, "displays", displays);
+        pushCounter(L, "showFailures", showFailures);
+        pushCounter(L, "clicks", clicks);
+        pushCounter(L, "closes", closes);
+
+        long done = fills.get() + loadFailures.get();
+        L.pushNumber(done == 0 ? 0 : (double) fills.get() / done);
+        L.setField(-2, "fillRate");
+
+        loadLatency.push(L);
+        L.setField(-2, "load");
+
+        showLatency.push(L);
+        L.setField(-2, "show");
+    }
+
+    private static void pushCounter(LuaState L, String name, AtomicLong counter) {
+        L.pushNumber(counter.get());
+        L.setField(-2, name);
+    }
+}
@@ -0,0 +1,112 @@
+// ----------------------------------------------------------------------------
+// AndroidNetworkStateSource.java  –  NetworkStateSource over ConnectivityManager
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * Follows the default network (API 24+) or any internet-capable network
+ * (API 21-23). Every callback re-reads the active network rather than
+ * trusting the callback's own network, so several networks coming and going
+ * can't leave a stale state behind.
+ *
+ * Needs ACCESS_NETWORK_STATE; without it (or without a ConnectivityManager)
+ * the source reports {@link #UNMETERED} and never gates anything.
+ */
+final class AndroidNetworkStateSource implements NetworkStateSource {
+
+    private static final String TAG = "IronSourcePlugin";
+
+    private final ConnectivityManager cm;
+    private volatile Listener listener;
+    private volatile int state = UNMETERED;
+    private boolean registered;
+
+    private final ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(Network network) { refresh(); }
+
+        @Override
+        public void onLost(Network network) { refresh(); }
+
+        @Override
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities caps) { refresh(); }
+    };
+
+    AndroidNetworkStateSource(Context context) {
+        Object service = context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        cm = (service instanceof ConnectivityManager) ? (ConnectivityManager) service : null;
+    }
+
+    @Override
+    public int current() { return state; }
+
+    @Override
+    public synchronized void start(Listener listener) {
+        this.listener = listener;
+        if (cm == null || registered) return;
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                cm.registerDefaultNetworkCallback(callback);
+            } else {
+                cm.registerNetworkCallback(new NetworkRequest.Builder()
+                        .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET).build(), callback);
+            }
+            registered = true;
+        } catch (RuntimeException e) {
+            // SecurityException without ACCESS_NETWORK_STATE; stay "online".
+            Log.w(TAG, "connectivity monitoring unavailable: " + e.getMessage());
+            return;
+        }
+        refresh();
+    }
+
+    @Override
+    public synchronized void stop() {
+        listener = null;
+        if (!registered) return;
+        registered = false;
+        try {
+            cm.unregisterNetworkCallback(callback);
+        } catch (RuntimeException ignored) {
+            // already unregistered
+        }
+    }
+
+    private synchronized void refresh() {
+        int next = read();
+        if (next == state) return;
+        state = next;
+        Listener l = listener;
+        if (l != null) l.onNetworkStateChanged(next);
+    }
+
+    private int read() {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                Network active = cm.getActiveNetwork();
+                NetworkCapabilities caps = (active != null) ? cm.getNetworkCapabilities(active) : null;
+                if (caps == null || !caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+                    return OFFLINE;
+                }
+                return caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED)
+                        ? UNMETERED : METERED;
+            }
+            NetworkInfo info = cm.getActiveNetworkInfo();
+            if (info == null || !info.isConnected()) return OFFLINE;
+            return cm.isActiveNetworkMetered() ? METERED : UNMETERED;
+        } catch (RuntimeException e) {
+            return UNMETERED;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+// ----------------------------------------------------------------------------
+// EventQueue.java  –  bounded, lock-free queue of pooled ironSource events
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Multi-producer / single-consumer ring of preallocated event records.
+ *
+ * SDK callbacks (any thread) claim a slot, fill it in place and publish it;
+ * the Corona runtime thread drains published slots once per frame. Records
+ * are reused, so steady-state delivery allocates nothing on the Java side.
+ * This is Dmitry Vyukov's bounded MPMC queue reduced to a single consumer.
+ */
+final class EventQueue {
+
+    /** One pooled event. Fields are only valid inside {@link Consumer#onEvent}. */
+    static final class Record {
+        String  unit;
+        String  type;
+        String  phase;
+        boolean isError;
+        String  response;
+        LevelPlayAdInfo adInfo;
+        /** Set for an onComplete call: it goes to the request's callback, not the listeners. */
+        PendingRequests.Request request;
+        String  result;
+
+        void clear() {
+            unit     = null;
+            type     = null;
+            phase    = null;
+            isError  = false;
+            response = null;
+            adInfo   = null;
+            request  = null;
+            result   = null;
+        }
+    }
+
+    interface Consumer {
+        void onEvent(Record record);
+    }
+
+    private final Record[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    /** Consumer-owned; only touched from the draining thread. */
+    private long head;
+
+    /** @param capacity rounded up to the next power of two */
+    EventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots     = new Record[size];
+        sequences = new AtomicLongArray(size);
+        mask      = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Record();
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() { return slots.length; }
+
+    /**
+     * Copies an event into a free slot. Safe to call from any thread.
+     *
+     * @return false if the ring is full (the caller decides how to fall back)
+     */
+    boolean offer(String unit, String type, String phase, boolean isError, String response,
+                  LevelPlayAdInfo adInfo, PendingRequests.Request request, String result) {
+        long pos;
+        for (;;) {
+            pos = tail.get();
+            long dif = sequences.get((int) pos & mask) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+            } else if (dif < 0) {
+                return false;
+            }
+        }
+        int index = (int) pos & mask;
+        Record r = slots[index];
+        r.unit     = unit;
+        r.type     = type;
+        r.phase    = phase;
+        r.isError  = isError;
+        r.response = response;
+        r.adInfo   = adInfo;
+        r.request  = request;
+        r.result   = result;
+        sequences.lazySet(index, pos + 1);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code max} published records to {@code consumer}, in order.
+     * Must only be called from a single consumer thread.
+     *
+     * @return the number of records delivered
+     */
+    int drain(Consumer consumer, int max) {
+        int n = 0;
+        while (n < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) break;
+            Record r = slots[index];
+            try {
+                consumer.onEvent(r);
+            } finally {
+                r.clear();
+                sequences.lazySet(index, head + slots.length);
+                head++;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /** Consumer-side check for published records. */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
@@ -0,0 +1,129 @@
+// ----------------------------------------------------------------------------
+// EventSubscriptions.java  –  per-type / per-phase Lua listener subscriptions
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+/**
+ * Listeners added with {@code ironSource.addEventListener(type, phases, fn)}.
+ *
+ * Each event type has a phase bitmask that is the union of every
+ * subscription to it, so SDK callbacks can check {@link #wants} from any
+ * thread and drop unwanted events before anything is queued or a Lua table is
+ * built. Subscriptions are only changed from the Lua thread; they are
+ * republished as copy-on-write snapshots for lock-free reads.
+ */
+final class EventSubscriptions {
+
+    static final String[] TYPES = { "init", "interstitial", "rewardedVideo", "system" };
+    /** Index for types not listed above; only "*" subscriptions receive them. */
+    static final int OTHER_TYPE = TYPES.length;
+
+    static final String[] PHASES = {
+            "success", "failed", "loaded", "available", "show", "reward", "closed", "overflow",
+            "memory"
+    };
+    /** Bit for phases not listed above; only all-phase subscriptions receive them. */
+    static final int OTHER_PHASE = 1 << 31;
+    static final int ALL_PHASES  = -1;
+
+    /** One addEventListener() call. */
+    static final class Subscription {
+        final int ref;        // Lua registry reference to the listener
+        final int type;       // index into TYPES, OTHER_TYPE, or -1 for "*"
+        final int phaseMask;
+
+        Subscription(int ref, int type, int phaseMask) {
+            this.ref       = ref;
+            this.type      = type;
+            this.phaseMask = phaseMask;
+        }
+
+        boolean matches(int type, int phaseBit) {
+            return (this.type < 0 || this.type == type) && (phaseMask & phaseBit) != 0;
+        }
+    }
+
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private volatile Subscription[] all = NONE;
+    /** Union of phase masks per type index (TYPES, then OTHER_TYPE). */
+    private volatile int[] union = new int[TYPES.length + 1];
+
+    /** @return index into TYPES, or OTHER_TYPE */
+    static int typeIndex(String type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) return i;
+        }
+        return OTHER_TYPE;
+    }
+
+    static int phaseBit(String phase) {
+        for (int i = 0; i < PHASES.length; i++) {
+            if (PHASES[i].equals(phase)) return 1 << i;
+        }
+        return OTHER_PHASE;
+    }
+
+    /**
+     * @param phase a phase name, or "*"
+     * @return its bit, ALL_PHASES for "*", or 0 for a name no event uses
+     */
+    static int phaseMask(String phase) {
+        if ("*".equals(phase)) return ALL_PHASES;
+        int bit = phaseBit(phase);
+        return (bit == OTHER_PHASE) ? 0 : bit;
+    }
+
+    boolean isEmpty() { return all.length == 0; }
+
+    Subscription[] all() { return all; }
+
+    /** Any thread. True if at least one subscription would receive this event. */
+    boolean wants(String type, String phase) {
+        return (union[typeIndex(type)] & phaseBit(phase)) != 0;
+    }
+
+    /** Lua thread. @param type index into TYPES, OTHER_TYPE, or -1 for every type */
+    void add(int ref, int type, int phaseMask) {
+        Subscription[] next = new Subscription[all.length + 1];
+        System.arraycopy(all, 0, next, 0, all.length);
+        next[all.length] = new Subscription(ref, type, phaseMask);
+        publish(next);
+    }
+
+    /** Lua thread. Removes {@code s}; the caller releases its ref. */
+    void remove(Subscription s) {
+        int n = 0;
+        Subscription[] next = new Subscription[all.length];
+        for (Subscription x : all) {
+            if (x != s) next[n++] = x;
+        }
+        if (n == all.length) return;
+        Subscription[] trimmed = new Subscription[n];
+        System.arraycopy(next, 0, trimmed, 0, n);
+        publish(trimmed);
+    }
+
+    /** Lua thread. Drops every subscription and returns them for ref cleanup. */
+    Subscription[] clear() {
+        Subscription[] old = all;
+        publish(NONE);
+        return old;
+    }
+
+    private void publish(Subscription[] next) {
+        int[] masks = new int[TYPES.length + 1];
+        for (Subscription s : next) {
+            if (s.type < 0) {
+                for (int i = 0; i < masks.length; i++) masks[i] |= s.phaseMask;
+            } else {
+                masks[s.type] |= s.phaseMask;
+            }
+        }
+        // Publish the masks first: a reader that sees the new array also sees its union.
+        union = masks;
+        all   = next;
+    }
+}
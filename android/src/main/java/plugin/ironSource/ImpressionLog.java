@@ -0,0 +1,463 @@
+// ----------------------------------------------------------------------------
+// ImpressionLog.java  –  append-only, batched on-disk impression revenue log
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import com.naef.jnlua.LuaState;
+
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Impression-level revenue records, written off the UI and Lua threads.
+ *
+ * Callbacks capture the few fields we keep into a small {@link Entry} and
+ * hand it to a background writer, which appends whole batches to
+ * {@code impressions.bin}. A batch is written when it reaches
+ * {@link #BATCH_SIZE} entries, after {@link #FLUSH_DELAY_MS}, or on
+ * {@link #flush()} (suspend/exit). Pending entries are capped so a stuck disk
+ * can't grow the heap; the file is rotated to {@code impressions.bin.1} once
+ * it exceeds {@code maxBytes}.
+ *
+ * Each file starts with {@code i32 MAGIC, i64 generation}. The generation is
+ * unique per file (a new file takes {@code max(now, previous + 1)}), so a
+ * reader cursor {@code "<generation>:<offset>"} keeps pointing at the same
+ * record after the file it is in has been rotated. Pages run through the
+ * rotated file, then the current one.
+ *
+ * On-disk record: {@code u16 length} then
+ * {@code u8 kind, i64 timeMillis, f64 revenue (NaN if unknown), u8 fieldMask,}
+ * then one modified-UTF-8 string per set bit of {@code fieldMask}, in
+ * {@link #STRING_FIELDS} order. A truncated tail record is ignored on read.
+ */
+final class ImpressionLog {
+
+    private static final String TAG = "IronSourcePlugin";
+
+    static final int KIND_DISPLAYED    = 0;
+    static final int KIND_INFO_CHANGED = 1;
+
+    static final String[] STRING_FIELDS = {
+            "unit", "adNetwork", "adUnitId", "placementName",
+            "adFormat", "country", "precision", "instanceName"
+    };
+
+    static final int  BATCH_SIZE     = 32;
+    static final long FLUSH_DELAY_MS = 10000;
+    static final int  MAX_PENDING    = 1024;
+    static final int  MAX_PAGE       = 500;
+
+    private static final int MAGIC        = 0x49534c31;   // "ISL1"
+    private static final int HEADER_BYTES = 12;
+
+    /** One impression, captured on the callback thread. */
+    static final class Entry {
+        final int    kind;
+        final long   timeMillis;
+        final double revenue;
+        final String[] strings = new String[STRING_FIELDS.length];
+
+        Entry(int kind, long timeMillis, String unit, LevelPlayAdInfo info) {
+            this.kind       = kind;
+            this.timeMillis = timeMillis;
+            Double r = info.getRevenue();
+            this.revenue = (r != null) ? r : Double.NaN;
+            strings[0] = unit;
+            strings[1] = info.getAdNetwork();
+            strings[2] = info.getAdUnitId();
+            strings[3] = info.getPlacementName();
+            strings[4] = info.getAdFormat();
+            strings[5] = info.getCountry();
+            strings[6] = info.getPrecision();
+            strings[7] = info.getInstanceName();
+        }
+    }
+
+    private final File file;
+    private final File rotated;
+    private final long maxBytes;
+
+    private final HandlerThread thread;
+    private final Handler writer;
+
+    /** Guarded by {@code this}. */
+    private ArrayList<Entry> pending = new ArrayList<>(BATCH_SIZE);
+    private boolean flushScheduled;
+    private long dropped;
+
+    /** Writer thread only. */
+    private DataOutputStream out;
+    /** Generation of the newest file written so far; writer thread only. */
+    private long generation;
+    /** Held while files are renamed or deleted, and while a page is read. */
+    private final Object files = new Object();
+
+    ImpressionLog(File dir, long maxBytes) {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "impression log: cannot create " + dir);
+        }
+        this.file     = new File(dir, "impressions.bin");
+        this.rotated  = new File(dir, "impressions.bin.1");
+        this.maxBytes = Math.max(4096L, maxBytes);
+
+        thread = new HandlerThread("ironSource-impressions", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        writer = new Handler(thread.getLooper());
+    }
+
+    // -------------------------------------------------------------------------
+    // Producer side (SDK callback threads)
+    // -------------------------------------------------------------------------
+
+    void record(int kind, String unit, LevelPlayAdInfo info) {
+        if (info == null) return;
+        Entry e = new Entry(kind, System.currentTimeMillis(), unit, info);
+        boolean full;
+        synchronized (this) {
+            if (pending.size() >= MAX_PENDING) {
+                dropped++;
+                return;
+            }
+            pending.add(e);
+            full = pending.size() >= BATCH_SIZE;
+            if (!full && flushScheduled) return;
+            flushScheduled = true;
+        }
+        if (full) {
+            writer.removeCallbacks(writeBatch);
+            writer.post(writeBatch);
+        } else {
+            writer.postDelayed(writeBatch, FLUSH_DELAY_MS);
+        }
+    }
+
+    /** Writes whatever is pending now (asynchronously, on the writer thread). */
+    void flush() {
+        writer.removeCallbacks(writeBatch);
+        writer.post(writeBatch);
+    }
+
+    /** Flushes, closes the file and stops the writer thread once it is done. */
+    void close() {
+        flush();
+        writer.post(new Runnable() {
+            @Override
+            public void run() {
+                closeStream();
+                thread.quitSafely();
+            }
+        });
+    }
+
+    // -------------------------------------------------------------------------
+    // Writer thread
+    // -------------------------------------------------------------------------
+
+    private final Runnable writeBatch = new Runnable() {
+        @Override
+        public void run() {
+            ArrayList<Entry> batch;
+            long lost;
+            synchronized (ImpressionLog.this) {
+                batch = pending;
+                pending = new ArrayList<>(BATCH_SIZE);
+                flushScheduled = false;
+                lost = dropped;
+                dropped = 0;
+            }
+            if (lost > 0) Log.w(TAG, "impression log: dropped " + lost + " records (writer behind)");
+            if (batch.isEmpty()) return;
+            try {
+                if (file.length() > maxBytes) rotate();
+                if (out == null) open();
+                for (Entry e : batch) write(out, e);
+                out.flush();
+            } catch (IOException ex) {
+                Log.e(TAG, "impression log write failed: " + ex.getMessage());
+                closeStream();
+            }
+        }
+    };
+
+    /** Writer thread. Appends to the current file, starting a new generation if needed. */
+    private void open() throws IOException {
+        long gen = readGeneration(file);
+        boolean fresh = gen < 0;
+        if (fresh) {
+            if (file.length() > 0) Log.w(TAG, "impression log: " + file + " has no valid header, replacing");
+            gen = Math.max(System.currentTimeMillis(),
+                    Math.max(generation, readGeneration(rotated)) + 1);
+        }
+        generation = Math.max(generation, gen);
+        out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file, !fresh), 8192));
+        if (fresh) {
+            out.writeInt(MAGIC);
+            out.writeLong(gen);
+        }
+    }
+
+    /** @return the file's generation, or -1 if it is missing or has no valid header */
+    private static long readGeneration(File f) {
+        if (f.length() < HEADER_BYTES) return -1;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(f));
+            return (in.readInt() == MAGIC) ? in.readLong() : -1;
+        } catch (IOException ex) {
+            return -1;
+        } finally {
+            if (in != null) {
+                try { in.close(); } catch (IOException ignored) { /* read-only */ }
+            }
+        }
+    }
+
+    private void rotate() {
+        closeStream();
+        synchronized (files) {
+            if ((rotated.exists() && !rotated.delete()) || !file.renameTo(rotated)) {
+                Log.w(TAG, "impression log: rotation failed, truncating");
+                if (!file.delete()) Log.w(TAG, "impression log: cannot delete " + file);
+            }
+        }
+    }
+
+    private void closeStream() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // nothing left to do with a stream we are discarding
+        }
+        out = null;
+    }
+
+    private static void write(DataOutputStream out, Entry e) throws IOException {
+        // Encode into a scratch buffer first so the length prefix is exact.
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(96);
+        DataOutputStream rec = new DataOutputStream(buf);
+        int mask = 0;
+        for (int i = 0; i < STRING_FIELDS.length; i++) {
+            if (e.strings[i] != null) mask |= 1 << i;
+        }
+        rec.writeByte(e.kind);
+        rec.writeLong(e.timeMillis);
+        rec.writeDouble(e.revenue);
+        rec.writeByte(mask);
+        for (int i = 0; i < STRING_FIELDS.length; i++) {
+            if (e.strings[i] != null) rec.writeUTF(e.strings[i]);
+        }
+        out.writeShort(buf.size());
+        buf.writeTo(out);
+    }
+
+    // -------------------------------------------------------------------------
+    // Reader side (Lua thread)
+    // -------------------------------------------------------------------------
+
+    /** Drops both the current and the rotated file (asynchronously). */
+    void clear() {
+        writer.post(new Runnable() {
+            @Override
+            public void run() {
+                closeStream();
+                synchronized (files) {
+                    if (file.exists() && !file.delete()) Log.w(TAG, "impression log: cannot delete " + file);
+                    if (rotated.exists() && !rotated.delete()) Log.w(TAG, "impression log: cannot delete " + rotated);
+                }
+            }
+        });
+    }
+
+    /**
+     * Pushes { records = { ... }, cursor = "generation:offset" [, resynced = true] }
+     * for up to {@code limit} flushed records after {@code cursor}, oldest
+     * first, reading on from the rotated file into the current one.
+     *
+     * A null or "0" cursor starts at the oldest record. A cursor whose file has
+     * since been dropped (rotated twice, or cleared) restarts at the oldest
+     * record; one that is not on a record boundary moves to the next boundary.
+     * Both set {@code resynced}, since records may have been skipped.
+     */
+    void pushPage(LuaState L, String cursor, int limit) {
+        // Short, bounded reads; the writer only waits here to rotate or clear.
+        synchronized (files) {
+            pushPageLocked(L, cursor, Math.max(1, Math.min(MAX_PAGE, limit)));
+        }
+    }
+
+    private void pushPageLocked(LuaState L, String cursor, int limit) {
+        File[] paths = { rotated, file };
+        long[] gens  = { readGeneration(rotated), readGeneration(file) };
+
+        long[] at = parseCursor(cursor);
+        boolean resynced = at == null && cursor != null && !cursor.isEmpty() && !"0".equals(cursor);
+        int  seg = -1;
+        long offset = HEADER_BYTES;
+        if (at != null) {
+            for (int i = 0; i < paths.length; i++) {
+                if (gens[i] == at[0]) seg = i;
+            }
+            if (seg >= 0) {
+                offset = at[1];
+            } else {
+                resynced = true;
+            }
+        }
+        if (seg < 0) seg = (gens[0] >= 0) ? 0 : 1;
+
+        L.newTable();
+        L.newTable(limit, 0);
+        int n = 0;
+        while (gens[seg] >= 0) {
+            long length = paths[seg].length();
+            long[] pos = { offset };
+            try {
+                if (!align(paths[seg], pos, length)) resynced = true;
+                n = readRecords(L, paths[seg], pos, length, n, limit);
+            } catch (IOException ex) {
+                Log.e(TAG, "impression log read failed: " + ex.getMessage());
+                break;
+            } finally {
+                offset = pos[0];
+            }
+            // The rotated file is complete (bar a torn tail); once read through, go on.
+            if (n >= limit || seg == paths.length - 1 || gens[seg + 1] < 0) break;
+            seg++;
+            offset = HEADER_BYTES;
+        }
+        L.setField(-2, "records");
+
+        if (gens[seg] >= 0) {
+            L.pushString(gens[seg] + ":" + offset);
+            L.setField(-2, "cursor");
+        }
+        if (resynced) {
+            L.pushBoolean(true);
+            L.setField(-2, "resynced");
+        }
+    }
+
+    /** @return { generation, offset }, or null if {@code cursor} is not of that form */
+    private static long[] parseCursor(String cursor) {
+        if (cursor == null) return null;
+        int colon = cursor.indexOf(':');
+        if (colon <= 0) return null;
+        try {
+            return new long[] {
+                    Long.parseLong(cursor.substring(0, colon)),
+                    Long.parseLong(cursor.substring(colon + 1))
+            };
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Walks the record length prefixes up to {@code pos[0]}, leaving it on the
+     * first record boundary at or after it (or the end of the complete records).
+     *
+     * @return false if {@code pos[0]} was not already a boundary
+     */
+    private static boolean align(File f, long[] pos, long length) throws IOException {
+        long want = pos[0];
+        if (want == HEADER_BYTES) return true;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 8192));
+        try {
+            skipFully(in, HEADER_BYTES);
+            long at = HEADER_BYTES;
+            while (at < want && length - at >= 2) {
+                int size = in.readUnsignedShort();
+                if (length - at - 2 < size) break;   // record still being written
+                skipFully(in, size);
+                at += 2 + size;
+            }
+            pos[0] = at;
+            return at == want;
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Pushes records from {@code pos[0]} into the table on top until {@code limit}; @return new count */
+    private static int readRecords(LuaState L, File f, long[] pos, long length, int n, int limit)
+            throws IOException {
+        if (n >= limit || length - pos[0] < 2) return n;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 8192));
+        try {
+            skipFully(in, pos[0]);
+            while (n < limit && length - pos[0] >= 2) {
+                int size = in.readUnsignedShort();
+                if (length - pos[0] - 2 < size) break;   // record still being written
+                byte[] record = new byte[size];
+                in.readFully(record);
+                pushRecord(L, record);
+                L.rawSet(-2, ++n);
+                pos[0] += 2 + size;
+            }
+            return n;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void skipFully(DataInputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long k = in.skip(bytes);
+            if (k <= 0) throw new EOFException();
+            bytes -= k;
+        }
+    }
+
+    /** Decodes the whole record before pushing anything, so a bad one leaves the stack as it was. */
+    private static void pushRecord(LuaState L, byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        int    kind    = in.readUnsignedByte();
+        long   time    = in.readLong();
+        double revenue = in.readDouble();
+        int    mask    = in.readUnsignedByte();
+        String[] strings = new String[STRING_FIELDS.length];
+        for (int i = 0; i < STRING_FIELDS.length; i++) {
+            if ((mask & (1 << i)) != 0) strings[i] = in.readUTF();
+        }
+
+        L.newTable(0, 4 + STRING_FIELDS.length);
+
+        L.pushString(kind == KIND_INFO_CHANGED ? "infoChanged" : "displayed");
+        L.setField(-2, "kind");
+
+        L.pushNumber(time);
+        L.setField(-2, "time");
+
+        if (!Double.isNaN(revenue)) {
+            L.pushNumber(revenue);
+            L.setField(-2, "revenue");
+        }
+
+        for (int i = 0; i < STRING_FIELDS.length; i++) {
+            if (strings[i] == null) continue;
+            L.pushString(strings[i]);
+            L.setField(-2, STRING_FIELDS[i]);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+// ----------------------------------------------------------------------------
+// LatencyHistogram.java  –  fixed-memory, lock-free latency histogram
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.naef.jnlua.LuaState;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Power-of-two millisecond buckets: bucket 0 holds [0, 1) ms, bucket i holds
+ * [2^(i-1), 2^i) ms, and the last bucket everything from ~32 s up. Recording
+ * is two atomic adds and a CAS loop for the max; memory never grows.
+ * Percentiles are reported as the upper bound of the bucket they fall in,
+ * capped at the recorded max: a bucket bound can be up to twice the largest
+ * sample in it, and p99 = 2048 with max = 1100 would read as a regression.
+ */
+final class LatencyHistogram {
+
+    static final int BUCKETS = 17;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum   = new AtomicLong();
+    private final AtomicLong max   = new AtomicLong();
+
+    void record(long millis) {
+        if (millis < 0) millis = 0;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        counts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(millis);
+        long m;
+        while (millis > (m = max.get()) && !max.compareAndSet(m, millis)) { /* retry */ }
+    }
+
+    long count() { return count.get(); }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /** Upper bound (ms) of the bucket containing quantile {@code q}, at most max; 0 if empty. */
+    long percentile(double q) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return (i == BUCKETS - 1) ? max.get() : Math.min(1L << i, max.get());
+        }
+        return max.get();
+    }
+
+    /** Pushes { count, mean, max, p50, p90, p99, buckets = { ... } } onto the Lua stack. */
+    void push(LuaState L) {
+        long n = count.get();
+        L.newTable();
+
+        L.pushNumber(n);
+        L.setField(-2, "count");
+
+        L.pushNumber(n == 0 ? 0 : (double) sum.get() / n);
+        L.setField(-2, "mean");
+
+        L.pushNumber(max.get());
+        L.setField(-2, "max");
+
+        L.pushNumber(percentile(0.50));
+        L.setField(-2, "p50");
+
+        L.pushNumber(percentile(0.90));
+        L.setField(-2, "p90");
+
+        L.pushNumber(percentile(0.99));
+        L.setField(-2, "p99");
+
+        // buckets[i] counts samples below 2^(i-1) ms; Lua arrays start at 1.
+        L.newTable();
+        for (int i = 0; i < BUCKETS; i++) {
+            L.pushNumber(counts.get(i));
+            L.rawSet(-2, i + 1);
+        }
+        L.setField(-2, "buckets");
+    }
+}
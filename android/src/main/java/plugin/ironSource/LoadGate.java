@@ -0,0 +1,187 @@
+// ----------------------------------------------------------------------------
+// LoadGate.java  –  holds ad loads while offline, releases them on reconnect
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.naef.jnlua.LuaState;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consulted by {@link AdUnit#refill()} before issuing loads.
+ *
+ * Offline, no load is issued; the unit is remembered instead. Metered
+ * connections follow the configured policy: {@link #ALLOW} loads normally,
+ * {@link #REDUCED} keeps at most one instance per unit loading or loaded,
+ * {@link #HOLD} treats metered like offline. When the state becomes less
+ * restrictive, the remembered units are refilled one at a time,
+ * {@code burstIntervalMillis} apart, rather than all in the same frame.
+ * A burst works on a snapshot: a unit that is still limited goes back to
+ * waiting for the next change instead of cycling.
+ */
+final class LoadGate implements NetworkStateSource.Listener {
+
+    static final int ALLOW   = 0;
+    static final int REDUCED = 1;
+    static final int HOLD    = 2;
+
+    static final String[] POLICIES = { "allow", "reduced", "hold" };
+    static final String[] STATES   = { "offline", "unmetered", "metered" };
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private final NetworkStateSource source;
+    private final int meteredPolicy;
+    private final long burstIntervalMillis;
+
+    private volatile int state = NetworkStateSource.UNMETERED;
+    /** Units that wanted to load while gated, in arrival order. Guarded by {@code this}. */
+    private final LinkedHashSet<AdUnit> held = new LinkedHashSet<>();
+    /** Snapshot being released by the current burst. Guarded by {@code this}. */
+    private final ArrayDeque<AdUnit> burst = new ArrayDeque<>();
+
+    private final AtomicLong gatedRefills = new AtomicLong();
+    private final AtomicLong releasedUnits = new AtomicLong();
+
+    LoadGate(NetworkStateSource source, int meteredPolicy, long burstIntervalMillis) {
+        this.source              = source;
+        this.meteredPolicy       = meteredPolicy;
+        this.burstIntervalMillis = Math.max(0L, burstIntervalMillis);
+    }
+
+    /** @return the policy index for {@code name}, or -1 */
+    static int policyOf(String name) {
+        for (int i = 0; i < POLICIES.length; i++) {
+            if (POLICIES[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    void start() {
+        source.start(this);
+        state = source.current();
+    }
+
+    void stop() {
+        source.stop();
+        synchronized (this) {
+            held.clear();
+            burst.clear();
+        }
+        MAIN.removeCallbacks(releaseNext);
+    }
+
+    int state() { return state; }
+
+    /**
+     * Any thread; lock-free.
+     *
+     * @return how many instances a unit may have loading or loaded right now
+     */
+    int limit() {
+        switch (state) {
+            case NetworkStateSource.OFFLINE:
+                return 0;
+            case NetworkStateSource.METERED:
+                return meteredPolicy == HOLD ? 0 : meteredPolicy == REDUCED ? 1 : Integer.MAX_VALUE;
+            default:
+                return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Called by a unit whose refill was cut short.
+     *
+     * @param limitSeen the {@link #limit()} the refill was held to
+     */
+    void hold(AdUnit unit, int limitSeen) {
+        gatedRefills.incrementAndGet();
+        synchronized (this) {
+            held.add(unit);
+        }
+        // The state may have improved between limit() and here.
+        if (limit() > limitSeen) scheduleRelease();
+    }
+
+    /** The unit was cleared: it must not be refilled by a later burst. */
+    void remove(AdUnit unit) {
+        synchronized (this) {
+            held.remove(unit);
+            burst.remove(unit);
+        }
+    }
+
+    @Override
+    public void onNetworkStateChanged(int state) {
+        this.state = state;
+        if (limit() > 0) scheduleRelease();
+    }
+
+    private void scheduleRelease() {
+        synchronized (this) {
+            if (held.isEmpty()) return;
+            boolean idle = burst.isEmpty();
+            for (AdUnit unit : held) {
+                if (!burst.contains(unit)) burst.addLast(unit);
+            }
+            held.clear();
+            if (!idle) return;   // the running burst picks up the new units
+        }
+        MAIN.post(releaseNext);
+    }
+
+    /** Main thread. Refills one unit of the burst, then re-posts itself for the next. */
+    private final Runnable releaseNext = new Runnable() {
+        @Override
+        public void run() {
+            AdUnit unit;
+            boolean more;
+            synchronized (LoadGate.this) {
+                if (limit() == 0) {
+                    // Offline again: the rest waits for the next change.
+                    held.addAll(burst);
+                    burst.clear();
+                    return;
+                }
+                unit = burst.pollFirst();
+                more = !burst.isEmpty();
+            }
+            if (unit != null) {
+                releasedUnits.incrementAndGet();
+                unit.refill();
+            }
+            if (more) MAIN.postDelayed(this, burstIntervalMillis);
+        }
+    };
+
+    void resetStats() {
+        gatedRefills.set(0);
+        releasedUnits.set(0);
+    }
+
+    /** Pushes { state, held, gatedRefills, releasedUnits }. */
+    void push(LuaState L) {
+        L.newTable(0, 4);
+
+        L.pushString(STATES[state]);
+        L.setField(-2, "state");
+
+        int n;
+        synchronized (this) { n = held.size() + burst.size(); }
+        L.pushInteger(n);
+        L.setField(-2, "held");
+
+        L.pushNumber(gatedRefills.get());
+        L.setField(-2, "gatedRefills");
+
+        L.pushNumber(releasedUnits.get());
+        L.setField(-2, "releasedUnits");
+    }
+}
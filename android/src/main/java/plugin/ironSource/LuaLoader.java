@@ -6,6 +6,11 @@
 
 package plugin.ironSource;
 
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.ansca.corona.CoronaActivity;
@@ -13,6 +18,8 @@ import com.ansca.corona.CoronaEnvironment;
 import com.ansca.corona.CoronaLua;
 import com.ansca.corona.CoronaRuntime;
 import com.ansca.corona.CoronaRuntimeListener;
+import com.ansca.corona.CoronaRuntimeTask;
+import com.ansca.corona.CoronaRuntimeTaskDispatcher;
 
 import com.unity3d.mediation.LevelPlay;
 import com.unity3d.mediation.LevelPlayAdError;
@@ -21,48 +28,210 @@ import com.unity3d.mediation.LevelPlayConfiguration;
 import com.unity3d.mediation.LevelPlayInitError;
 import com.unity3d.mediation.LevelPlayInitListener;
 import com.unity3d.mediation.LevelPlayInitRequest;
-import com.unity3d.mediation.interstitial.LevelPlayInterstitialAd;
-import com.unity3d.mediation.interstitial.LevelPlayInterstitialAdListener;
 import com.unity3d.mediation.rewarded.LevelPlayReward;
-import com.unity3d.mediation.rewarded.LevelPlayRewardedAd;
-import com.unity3d.mediation.rewarded.LevelPlayRewardedAdListener;
 
 import com.naef.jnlua.JavaFunction;
 import com.naef.jnlua.LuaState;
+import com.naef.jnlua.LuaType;
 import com.naef.jnlua.NamedJavaFunction;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Solar2D plugin entry point for IronSource/LevelPlay SDK 9.x
  *
  * Lua API:
- *   ironSource.init(listener, options)
- *   ironSource.load(adUnitType)
- *   ironSource.show(adUnitType [, options])
- *   ironSource.isAvailable(adUnitType)  → boolean
+ *   ironSource.init(listener, options)   (listener may be nil when using addEventListener)
+ *   ironSource.addEventListener(type, [phases,] listener)  → boolean
+ *   ironSource.removeEventListener(type, listener)       → boolean
+ *   ironSource.createAdUnit({ key, format, adUnitId [, poolSize] })  → boolean
+ *   ironSource.load(unit [, { timeout = ms, onComplete = fn }])
+ *   ironSource.show(unit [, { placementName, timeout = ms, closeTimeout = ms, onComplete = fn }])
+ *   ironSource.isAvailable(unit)        → boolean
+ *   ironSource.getAvailability()        → { [unit] = boolean, ... }
+ *   ironSource.getState(unit)           → "idle" | "loading" | "ready" | "showing" | "backoff"
+ *   ironSource.getStats()               → { init, units = { [unit] = stats }, events }
+ *   ironSource.resetStats()
+ *   ironSource.getImpressions([cursor [, limit]]) → { records = { ... }, cursor [, resynced] }
+ *   ironSource.clearImpressions()
+ *   ironSource.getTrace([clear])        → { mode, dropped, spans = { ... } }
+ *
+ * `unit` is an ad unit key (an alias given in adUnits/createAdUnit, or
+ * "interstitial" / "rewardedVideo" for the legacy IDs) or a LevelPlay ad unit
+ * ID. Events carry the key in `event.unit` and the format in `event.type`.
+ * Every init() replaces the registered units; units from createAdUnit()
+ * calls made before the first init() are rebuilt with its options.
  *
  * options table for init():
  *   key                  = "appKey"           (required)
  *   interstitialAdUnitId = "..."              (required for interstitial)
  *   rewardedVideoAdUnitId = "..."             (required for rewarded)
+ *   adUnits              = { { key = "...", format = "interstitial" | "rewardedVideo",
+ *                              adUnitId = "..." [, poolSize = n] }, ... }
  *   userId               = "..."             (optional)
  *   hasUserConsent       = true/false        (GDPR)
  *   coppaUnderAge        = true/false        (COPPA)
  *   ccpaDoNotSell        = true/false        (CCPA)
  *   showDebugLog         = true/false
+ *   poolSize             = n                 (preloaded instances per ad unit, 1-4, default 1)
+ *   adTtl                = seconds           (max age of a preloaded ad, default 2700, 0 = never)
+ *   autoReload           = true/false        (retry failed loads with backoff, default true)
+ *   reloadMinDelay       = ms                (first retry delay, default 2000)
+ *   reloadMaxDelay       = ms                (retry delay cap, default 120000)
+ *   showTimeout          = ms                (default show() display watchdog, default 30000, 0 = off)
+ *   closeTimeout         = ms                (default show() close watchdog, default 600000, 0 = off)
+ *   adaptivePreload      = true/false        (time refills from the learned show cadence)
+ *   preloadMinDelay      = ms                (shorter deferrals load at once, default 1000)
+ *   preloadMaxDelay      = ms                (longest deferral after a show, default 60000)
+ *   deferInit            = true/false        (start the SDK after first frames, on UI idle)
+ *   deferInitTimeout     = ms                (deferInit upper bound, default 5000)
+ *   batchEvents          = true/false        (queue events, deliver once per frame)
+ *   maxEventsPerFrame    = n                 (batchEvents budget, default 8)
+ *   impressionLog        = true/false        (append impression revenue to an on-disk log)
+ *   impressionLogMaxBytes = n                (log size before rotation, default 1 MB)
+ *   memoryPolicy         = false | { [trimLevel] = action | { actions } }
+ *                                            (trim level → pauseRefill / dropPreloaded /
+ *                                             releaseAdObjects / none; see MemoryPolicy)
+ *   memoryCooldown       = ms                (how long after a trim the pools refill, default 30000)
+ *   waitForNetwork       = true/false        (hold loads while offline, default true)
+ *   meteredPolicy        = "allow" | "reduced" | "hold"   (loads on metered networks)
+ *   reconnectBurstInterval = ms              (spacing of held units on reconnect, default 250)
+ *   tracing              = true/false        (trace spans around init, load, show and dispatch)
+ *   traceBufferSize      = n                 (spans kept when not system tracing, default 512)
  */
 public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
     private static final String TAG = "IronSourcePlugin";
 
+    // Fields below are written on the runtime thread and read from SDK/UI threads.
+
     /** Lua registry reference to the Lua listener function. */
-    private int listenerRef = CoronaLua.REFNIL;
+    private volatile int listenerRef = CoronaLua.REFNIL;
+
+    /** addEventListener() subscriptions, checked before an event is queued. */
+    private final EventSubscriptions subscriptions = new EventSubscriptions();
+
+    /** load()/show() calls with onComplete or a timeout, until they resolve. */
+    private final PendingRequests pending = new PendingRequests(new PendingRequests.Completion() {
+        @Override
+        public void onComplete(PendingRequests.Request request, String result,
+                               boolean isError, String message) {
+            completeRequest(request, result, isError, message);
+        }
+
+        @Override
+        public void onDisplayTimeout(AdUnit unit) {
+            // Only the request that started the show gets here; false if it already ended.
+            if (!unit.abandonShow()) return;
+            Log.w(TAG, "ironSource.show(" + unit.key + ") – not displayed in time, releasing");
+            dispatchEvent(unit.key, unit.format.luaName, "show", true, "display timed out");
+        }
 
-    /** Store the CoronaRuntime so we can access LuaState from callbacks. */
-    private CoronaRuntime fRuntime;
+        @Override
+        public void onCloseTimeout(AdUnit unit) {
+            if (!unit.abandonShow()) return;
+            Log.w(TAG, "ironSource.show(" + unit.key + ") – not closed in time, releasing");
+            dispatchEvent(unit.key, unit.format.luaName, "closed", true, "close timed out");
+        }
+    });
+
+    /** Pools of LevelPlay ad objects – created by init(), started once the SDK is up. */
+    private final AdUnitRegistry units = new AdUnitRegistry();
+    /** Options from the last init(), applied to units created later by createAdUnit(). */
+    private volatile AdUnit.Options unitOptions = new AdUnit.Options();
+    /** Lua thread. False until init() first builds its units. */
+    private boolean unitsInitialized;
+
+    /** A createAdUnit() made before the first init(); rebuilt with init's options. */
+    private static final class EarlyUnit {
+        final AdUnit unit;
+        /** From createAdUnit(), or 0 to take init's poolSize. */
+        final int poolSize;
+
+        EarlyUnit(AdUnit unit, int poolSize) {
+            this.unit     = unit;
+            this.poolSize = poolSize;
+        }
+    }
 
-    /** LevelPlay ad unit objects – created after SDK init succeeds. */
-    private LevelPlayInterstitialAd interstitialAd;
-    private LevelPlayRewardedAd rewardedAd;
+    /** Lua thread. Emptied by the first init(). */
+    private final ArrayList<EarlyUnit> earlyUnits = new ArrayList<>();
+    /** Set once LevelPlay reports init success; later units start immediately. */
+    private volatile boolean sdkStarted;
+    /** The deferInit start of the last init(), until it runs or is cancelled. */
+    private volatile DeferredInit deferredInit;
+
+    private static final long DEFAULT_AD_TTL_SECONDS = 2700;
+
+    /** Show watchdog for show() calls that give no timeout / closeTimeout of their own. */
+    private static final long DEFAULT_SHOW_TIMEOUT_MS  = 30000;
+    private static final long DEFAULT_CLOSE_TIMEOUT_MS = 600000;
+    private volatile long showTimeoutMillis  = DEFAULT_SHOW_TIMEOUT_MS;
+    private volatile long closeTimeoutMillis = DEFAULT_CLOSE_TIMEOUT_MS;
+
+    /** deferInit: Corona frames to render before waiting for an idle UI looper. */
+    private static final int  DEFER_INIT_FRAMES = 2;
+    private static final long DEFAULT_DEFER_INIT_TIMEOUT_MS = 5000;
+
+    /** LevelPlay.init() → onInitSuccess / onInitFailed. */
+    private final LatencyHistogram initLatency = new LatencyHistogram();
+    /** Tracer async span from LevelPlay.init() to its outcome; cookie is {@link #initCount}. */
+    private static final String INIT_SPAN = "ironSource.sdkInit";
+    /** LevelPlay.init() calls so far; UI thread only. */
+    private int initCount;
+
+    /** Capacity of the batched event ring; overflow spills into {@link #eventSpill}. */
+    private static final int EVENT_QUEUE_CAPACITY = 256;
+    private static final int EVENT_SPILL_CAPACITY = 256;
+    private static final int DEFAULT_MAX_EVENTS_PER_FRAME = 8;
+
+    /** Batched delivery: callbacks enqueue here, the runtime thread drains per frame. */
+    private final EventQueue eventQueue = new EventQueue(EVENT_QUEUE_CAPACITY);
+    /**
+     * Events that found the ring full, drained after it under the same budget.
+     * While it is non-empty every new event goes here too, so order is kept.
+     */
+    private final ReplayBuffer eventSpill = new ReplayBuffer(EVENT_SPILL_CAPACITY);
+    /** True while {@link #eventSpill} holds events; written under its lock. */
+    private volatile boolean spilling;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private volatile boolean batchEvents;
+    private volatile int maxEventsPerFrame = DEFAULT_MAX_EVENTS_PER_FRAME;
+
+    /** Events and onComplete calls held back while undeliverable (no listener/runtime yet, or suspended). */
+    private static final int REPLAY_CAPACITY = 64;
+    private final ReplayBuffer replay = new ReplayBuffer(REPLAY_CAPACITY);
+    private final AtomicBoolean replayScheduled = new AtomicBoolean(false);
+    private final AtomicLong eventsDropped = new AtomicLong();
+    /** Between onSuspended and onResumed: events are held, not delivered. */
+    private volatile boolean suspended;
+
+    private static final long DEFAULT_IMPRESSION_LOG_MAX_BYTES = 1024 * 1024;
+    private static final int  DEFAULT_IMPRESSION_PAGE = 100;
+
+    /** Opt-in impression revenue log (null unless init() enabled it). */
+    private volatile ImpressionLog impressionLog;
+
+    private static final long DEFAULT_MEMORY_COOLDOWN_MS = 30000;
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    /** Trim-level policy registered on {@link #memoryContext}; null if disabled. */
+    private volatile MemoryPolicy memoryPolicy;
+    private volatile Context memoryContext;
+    private volatile long memoryCooldownMillis = DEFAULT_MEMORY_COOLDOWN_MS;
+
+    private static final long DEFAULT_RECONNECT_BURST_INTERVAL_MS = 250;
+
+    /** Connectivity gate shared by every unit of the current init(); null if disabled. */
+    private volatile LoadGate loadGate;
+    /** Replaces the ConnectivityManager source for the next init(); see setNetworkStateSource. */
+    private static volatile NetworkStateSource networkSourceOverride;
+
+    /** Posts work onto the Corona runtime thread (created in invoke()). */
+    private volatile CoronaRuntimeTaskDispatcher fDispatcher;
 
     // -------------------------------------------------------------------------
     // CoronaRuntimeListener
@@ -70,7 +239,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
     @Override
     public void onLoaded(CoronaRuntime runtime) {
-        fRuntime = runtime;
+        scheduleReplay();
     }
 
     @Override
@@ -78,26 +247,55 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
     @Override
     public void onSuspended(CoronaRuntime runtime) {
-        // SDK 9.x removed IronSource.onPause() — no-op
+        // SDK 9.x removed IronSource.onPause(); only hold back our own retries.
+        suspended = true;
+        for (AdUnit unit : units.all()) unit.pauseReloads();
+        ImpressionLog log = impressionLog;
+        if (log != null) log.flush();
     }
 
     @Override
     public void onResumed(CoronaRuntime runtime) {
-        // SDK 9.x removed IronSource.onResume() — no-op
+        // SDK 9.x removed IronSource.onResume(); release retries held while suspended.
+        for (AdUnit unit : units.all()) {
+            unit.resumeReloads();
+            // Rebuilds anything memory pressure dropped while we were away.
+            unit.resumeRefill();
+        }
+        suspended = false;
+        scheduleReplay();
     }
 
     @Override
     public void onExiting(CoronaRuntime runtime) {
-        if (runtime != null && listenerRef != CoronaLua.REFNIL) {
-            LuaState L = runtime.getLuaState();
-            if (L != null) {
-                CoronaLua.deleteRef(L, listenerRef);
-            }
+        LuaState L = (runtime != null) ? runtime.getLuaState() : null;
+        if (L != null && listenerRef != CoronaLua.REFNIL) {
+            CoronaLua.deleteRef(L, listenerRef);
+        }
+        for (EventSubscriptions.Subscription sub : subscriptions.clear()) {
+            if (L != null) CoronaLua.deleteRef(L, sub.ref);
         }
         listenerRef  = CoronaLua.REFNIL;
-        fRuntime     = null;
-        interstitialAd = null;
-        rewardedAd     = null;
+        fDispatcher  = null;
+        cancelDeferredInit();
+        sdkStarted   = false;
+        pending.clear();
+        for (AdUnit unit : units.clear()) unit.clear();
+        ImpressionLog log = impressionLog;
+        impressionLog = null;
+        if (log != null) log.close();
+        setMemoryPolicy(null, null);
+        LoadGate gate = loadGate;
+        loadGate = null;
+        if (gate != null) gate.stop();
+    }
+
+    /**
+     * Installs a connectivity source (e.g. a fake in tests or benchmarks) used
+     * by the next init() instead of ConnectivityManager. Null restores the default.
+     */
+    static void setNetworkStateSource(NetworkStateSource source) {
+        networkSourceOverride = source;
     }
 
     // -------------------------------------------------------------------------
@@ -107,6 +305,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
     @Override
     public int invoke(LuaState L) {
         CoronaEnvironment.addRuntimeListener(this);
+        fDispatcher = new CoronaRuntimeTaskDispatcher(L);
 
         // Create and return a Lua table of functions
         L.newTable();
@@ -114,6 +313,15 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         L.pushJavaFunction(new InitWrapper());
         L.setField(-2, "init");
 
+        L.pushJavaFunction(new AddEventListenerWrapper());
+        L.setField(-2, "addEventListener");
+
+        L.pushJavaFunction(new RemoveEventListenerWrapper());
+        L.setField(-2, "removeEventListener");
+
+        L.pushJavaFunction(new CreateAdUnitWrapper());
+        L.setField(-2, "createAdUnit");
+
         L.pushJavaFunction(new LoadWrapper());
         L.setField(-2, "load");
 
@@ -123,6 +331,27 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         L.pushJavaFunction(new IsAvailableWrapper());
         L.setField(-2, "isAvailable");
 
+        L.pushJavaFunction(new GetAvailabilityWrapper());
+        L.setField(-2, "getAvailability");
+
+        L.pushJavaFunction(new GetStateWrapper());
+        L.setField(-2, "getState");
+
+        L.pushJavaFunction(new GetStatsWrapper());
+        L.setField(-2, "getStats");
+
+        L.pushJavaFunction(new ResetStatsWrapper());
+        L.setField(-2, "resetStats");
+
+        L.pushJavaFunction(new GetImpressionsWrapper());
+        L.setField(-2, "getImpressions");
+
+        L.pushJavaFunction(new ClearImpressionsWrapper());
+        L.setField(-2, "clearImpressions");
+
+        L.pushJavaFunction(new GetTraceWrapper());
+        L.setField(-2, "getTrace");
+
         return 1;
     }
 
@@ -130,44 +359,428 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
     // Helper: dispatch an event table to the Lua listener
     // -------------------------------------------------------------------------
 
-    private void dispatchEvent(final String type, final String phase,
-                               final boolean isError, final String response) {
-        final CoronaActivity activity = CoronaEnvironment.getCoronaActivity();
-        if (activity == null) return;
+    private void dispatchEvent(String unit, String type, String phase,
+                               boolean isError, String response) {
+        dispatchEvent(unit, type, phase, isError, response, null);
+    }
+
+    /**
+     * @param unit   ad unit key for ad events, null for SDK-level events like init
+     * @param adInfo exposed lazily as event.adInfo; may be null
+     */
+    private void dispatchEvent(final String unit, final String type, final String phase,
+                               final boolean isError, final String response,
+                               final LevelPlayAdInfo adInfo) {
+        // Nobody listens for this type/phase: don't queue it or build a table for it.
+        if (hasListeners() && !isWanted(type, phase)) return;
+
+        // Keep arrival order: once anything is held back, later events queue behind it.
+        if (!canDeliver() || !replay.isEmpty()) {
+            holdEvent(unit, type, phase, isError, response, adInfo, null, null);
+            return;
+        }
 
-        activity.runOnUiThread(new Runnable() {
+        if (batchEvents && enqueueEvent(unit, type, phase, isError, response, adInfo, null, null)) return;
+
+        final CoronaRuntimeTaskDispatcher dispatcher = fDispatcher;
+        if (dispatcher == null) {
+            holdEvent(unit, type, phase, isError, response, adInfo, null, null);
+            return;
+        }
+
+        // The Lua state is owned by the runtime thread – never touch it from the UI thread.
+        dispatcher.send(new CoronaRuntimeTask() {
             @Override
-            public void run() {
-                if (fRuntime == null) return;
-                LuaState L = fRuntime.getLuaState();
+            public void executeUsing(CoronaRuntime runtime) {
+                LuaState L = (runtime != null) ? runtime.getLuaState() : null;
                 if (L == null) return;
-                if (listenerRef == CoronaLua.REFNIL) return;
+                pushEvent(L, unit, type, phase, isError, response, adInfo);
+            }
+        });
+    }
+
+    /** True if init() registered a listener or any addEventListener() subscription exists. */
+    private boolean hasListeners() {
+        return listenerRef != CoronaLua.REFNIL || !subscriptions.isEmpty();
+    }
 
-                CoronaLua.newEvent(L, "ironSource");
+    private boolean isWanted(String type, String phase) {
+        return listenerRef != CoronaLua.REFNIL || subscriptions.wants(type, phase);
+    }
+
+    /**
+     * Builds the event table once and hands it to the init() listener and every
+     * matching subscription. Runtime thread only.
+     */
+    private void pushEvent(LuaState L, String unit, String type, String phase,
+                           boolean isError, String response, LevelPlayAdInfo adInfo) {
+        final int ref = listenerRef;
+        final EventSubscriptions.Subscription[] subs = subscriptions.all();
+        if (ref == CoronaLua.REFNIL && subs.length == 0) {
+            holdEvent(unit, type, phase, isError, response, adInfo, null, null);
+            return;
+        }
+
+        final int typeIndex = EventSubscriptions.typeIndex(type);
+        final int phaseBit  = EventSubscriptions.phaseBit(phase);
+        boolean wanted = ref != CoronaLua.REFNIL;
+        for (int i = 0; !wanted && i < subs.length; i++) {
+            wanted = subs[i].matches(typeIndex, phaseBit);
+        }
+        if (!wanted) return;
+
+        String span = null;
+        long spanToken = 0;
+        if (Tracer.enabled) {
+            span = "ironSource.dispatch " + type + "/" + phase;
+            spanToken = Tracer.begin(span);
+        }
 
-                L.pushString(type);
-                L.setField(-2, "type");
+        CoronaLua.newEvent(L, "ironSource");
 
-                L.pushString(phase);
-                L.setField(-2, "phase");
+        if (unit != null) {
+            L.pushString(unit);
+            L.setField(-2, "unit");
+        }
 
-                L.pushBoolean(isError);
-                L.setField(-2, "isError");
+        L.pushString(type);
+        L.setField(-2, "type");
 
-                if (response != null) {
-                    L.pushString(response);
-                    L.setField(-2, "response");
+        L.pushString(phase);
+        L.setField(-2, "phase");
+
+        L.pushBoolean(isError);
+        L.setField(-2, "isError");
+
+        if (response != null) {
+            L.pushString(response);
+            L.setField(-2, "response");
+        }
+
+        // One userdata; its fields cross into Java only when Lua reads them.
+        if (adInfo != null) {
+            L.pushJavaObject(new AdInfoProxy(adInfo));
+            L.setField(-2, "adInfo");
+        }
+
+        final int event = L.getTop();
+        if (ref != CoronaLua.REFNIL) {
+            deliver(L, event, ref);
+        }
+        for (EventSubscriptions.Subscription sub : subs) {
+            if (sub.matches(typeIndex, phaseBit)) deliver(L, event, sub.ref);
+        }
+        L.setTop(event - 1);
+        if (span != null) Tracer.end(span, spanToken);
+    }
+
+    /** Calls one listener with a copy of the event table at {@code event}. */
+    private static void deliver(LuaState L, int event, int ref) {
+        L.pushValue(event);
+        try {
+            CoronaLua.dispatchEvent(L, ref, 0);
+        } catch (Exception e) {
+            Log.e(TAG, "Error dispatching ironSource event: " + e.getMessage());
+        }
+        L.setTop(event);
+    }
+
+    /** Runtime thread. Hands a queued or held record to whoever it is for. */
+    private void pushRecord(LuaState L, EventQueue.Record r) {
+        if (r.request != null) {
+            pushCompletion(L, r.request, r.result, r.isError, r.response);
+        } else {
+            pushEvent(L, r.unit, r.type, r.phase, r.isError, r.response, r.adInfo);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Replay: events that arrived while they could not be delivered
+    // -------------------------------------------------------------------------
+
+    private boolean canDeliver() {
+        return !suspended && fDispatcher != null && hasListeners();
+    }
+
+    /** Held events need a listener; held onComplete calls only need the runtime. */
+    private boolean canReplay() {
+        return !suspended && fDispatcher != null && (hasListeners() || replay.hasCompletions());
+    }
+
+    /** @param request non-null for an onComplete call (see {@link EventQueue.Record#request}) */
+    private void holdEvent(String unit, String type, String phase,
+                           boolean isError, String response, LevelPlayAdInfo adInfo,
+                           PendingRequests.Request request, String result) {
+        if (!replay.add(unit, type, phase, isError, response, adInfo, request, result)) {
+            eventsDropped.incrementAndGet();
+            Log.w(TAG, "ironSource replay buffer full – dropped an event while holding "
+                    + type + "/" + phase);
+        }
+        scheduleReplay();
+    }
+
+    /** Posts one replay pass if there is something to replay and it can be delivered. */
+    private void scheduleReplay() {
+        if (replay.isEmpty() || !canReplay()) return;
+        if (replayScheduled.compareAndSet(false, true)) {
+            CoronaRuntimeTaskDispatcher dispatcher = fDispatcher;
+            if (dispatcher != null) {
+                dispatcher.send(replayTask);
+            } else {
+                replayScheduled.set(false);
+            }
+        }
+    }
+
+    private final EventQueue.Record replayRecord = new EventQueue.Record();
+
+    private final CoronaRuntimeTask replayTask = new CoronaRuntimeTask() {
+        @Override
+        public void executeUsing(CoronaRuntime runtime) {
+            replayScheduled.set(false);
+            LuaState L = (runtime != null) ? runtime.getLuaState() : null;
+            if (L == null || suspended) return;
+
+            long lost = hasListeners() ? replay.takeOverflow() : 0;
+            if (lost > 0) {
+                pushEvent(L, null, "system", "overflow", true,
+                        lost + " events dropped while delivery was held back", null);
+            }
+            EventQueue.Record r = replayRecord;
+            // A listener may remove the last subscription mid-replay; pushEvent would then
+            // hold the event again and the next poll() would hand it straight back. So
+            // without listeners only the onComplete calls are taken.
+            while (!suspended && (hasListeners() ? replay.poll(r) : replay.pollCompletion(r))) {
+                try {
+                    pushRecord(L, r);
+                } finally {
+                    r.clear();
                 }
+            }
+        }
+    };
+
+    // -------------------------------------------------------------------------
+    // Batched delivery: one drain task per frame instead of one Runnable per event
+    // -------------------------------------------------------------------------
+
+    /** @return false if there is no runtime to drain the queue yet */
+    private boolean enqueueEvent(String unit, String type, String phase,
+                                 boolean isError, String response, LevelPlayAdInfo adInfo,
+                                 PendingRequests.Request request, String result) {
+        final CoronaRuntimeTaskDispatcher dispatcher = fDispatcher;
+        if (dispatcher == null) return false;
+        if (spilling || !eventQueue.offer(unit, type, phase, isError, response, adInfo, request, result)) {
+            spill(unit, type, phase, isError, response, adInfo, request, result);
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            dispatcher.send(drainTask);
+        }
+        return true;
+    }
+
+    /** Ring full (or already spilling): queue behind it, or drop and count if the spill is full too. */
+    private void spill(String unit, String type, String phase,
+                       boolean isError, String response, LevelPlayAdInfo adInfo,
+                       PendingRequests.Request request, String result) {
+        synchronized (eventSpill) {
+            // The drain may have emptied both since the caller looked.
+            if (eventSpill.isEmpty()
+                    && eventQueue.offer(unit, type, phase, isError, response, adInfo, request, result)) {
+                return;
+            }
+            spilling = true;
+            if (!eventSpill.add(unit, type, phase, isError, response, adInfo, request, result)) {
+                eventsDropped.incrementAndGet();
+                Log.w(TAG, "ironSource event queue full – dropped an event while queueing "
+                        + type + "/" + phase);
+            }
+        }
+    }
+
+    /** Runtime thread. Takes the oldest spilled event; clears {@link #spilling} once empty. */
+    private boolean pollSpill(EventQueue.Record out) {
+        synchronized (eventSpill) {
+            boolean polled = eventSpill.poll(out);
+            if (eventSpill.isEmpty()) spilling = false;
+            return polled;
+        }
+    }
+
+    /** Drain-side consumer; bound to the runtime's LuaState for the duration of a drain. */
+    private final class EventPusher implements EventQueue.Consumer {
+        LuaState L;
+
+        @Override
+        public void onEvent(EventQueue.Record r) {
+            pushRecord(L, r);
+        }
+    }
+
+    private final EventPusher eventPusher = new EventPusher();
+    private final EventQueue.Record spillRecord = new EventQueue.Record();
+
+    private final CoronaRuntimeTask drainTask = new CoronaRuntimeTask() {
+        @Override
+        public void executeUsing(CoronaRuntime runtime) {
+            drainScheduled.set(false);
+            LuaState L = (runtime != null) ? runtime.getLuaState() : null;
+            if (L == null) return;
+
+            long lost = eventSpill.takeOverflow();
+            if (lost > 0) {
+                pushEvent(L, null, "system", "overflow", true,
+                        lost + " events dropped while the event queue was full", null);
+            }
 
+            int budget = maxEventsPerFrame;
+            int n;
+            eventPusher.L = L;
+            try {
+                n = eventQueue.drain(eventPusher, budget);
+            } finally {
+                eventPusher.L = null;
+            }
+            // Spilled events arrived after everything in the ring, so they go second.
+            EventQueue.Record r = spillRecord;
+            while (spilling && n < budget && pollSpill(r)) {
                 try {
-                    CoronaLua.dispatchEvent(L, listenerRef, 0);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error dispatching ironSource event: " + e.getMessage());
+                    pushRecord(L, r);
+                } finally {
+                    r.clear();
                 }
+                n++;
             }
-        });
+
+            // Budget exhausted – pick up the rest on the next frame.
+            if ((spilling || !eventQueue.isEmpty()) && drainScheduled.compareAndSet(false, true)) {
+                CoronaRuntimeTaskDispatcher dispatcher = fDispatcher;
+                if (dispatcher != null) dispatcher.send(this);
+            }
+        }
+    };
+
+    // -------------------------------------------------------------------------
+    // Ad unit callbacks  →  Lua events
+    // -------------------------------------------------------------------------
+
+    private final AdUnit.Callbacks unitEvents = new AdUnit.Callbacks() {
+        @Override
+        public void onLoaded(AdUnit unit, LevelPlayAdInfo adInfo) {
+            dispatch(unit, unit.format == AdUnit.Format.REWARDED ? "available" : "loaded",
+                    false, null, adInfo);
+            pending.onLoaded(unit);
+        }
+
+        @Override
+        public void onLoadFailed(AdUnit unit, LevelPlayAdError error) {
+            String msg = (error != null) ? error.getErrorMessage() : "load failed";
+            dispatch(unit, "show", true, msg, null);
+            pending.onLoadFailed(unit, msg);
+        }
+
+        @Override
+        public void onDisplayed(AdUnit unit, LevelPlayAdInfo adInfo) {
+            record(ImpressionLog.KIND_DISPLAYED, unit, adInfo);
+            dispatch(unit, "show", false, null, adInfo);
+            pending.onDisplayed(unit);
+        }
+
+        @Override
+        public void onDisplayFailed(AdUnit unit, LevelPlayAdError error, LevelPlayAdInfo adInfo) {
+            String msg = (error != null) ? error.getErrorMessage() : "show failed";
+            dispatch(unit, "show", true, msg, adInfo);
+            pending.onDisplayFailed(unit, msg);
+        }
+
+        @Override
+        public void onRewarded(AdUnit unit, LevelPlayReward reward, LevelPlayAdInfo adInfo) {
+            String rewardName = (reward != null) ? reward.getName() : null;
+            dispatch(unit, "reward", false, rewardName, adInfo);
+        }
+
+        @Override
+        public void onClicked(AdUnit unit, LevelPlayAdInfo adInfo) {}
+
+        @Override
+        public void onClosed(AdUnit unit, LevelPlayAdInfo adInfo) {
+            // The unit refills the shown slot itself; no explicit reload here.
+            dispatch(unit, "closed", false, null, adInfo);
+            pending.onClosed(unit);
+        }
+
+        @Override
+        public void onInfoChanged(AdUnit unit, LevelPlayAdInfo adInfo) {
+            // Revenue for an impression can be revised after display; log the update.
+            record(ImpressionLog.KIND_INFO_CHANGED, unit, adInfo);
+        }
+
+        private void record(int kind, AdUnit unit, LevelPlayAdInfo adInfo) {
+            ImpressionLog log = impressionLog;
+            if (log != null) log.record(kind, unit.key, adInfo);
+        }
+
+        private void dispatch(AdUnit unit, String phase, boolean isError, String response,
+                              LevelPlayAdInfo adInfo) {
+            dispatchEvent(unit.key, unit.format.luaName, phase, isError, response, adInfo);
+        }
+    };
+
+    // -------------------------------------------------------------------------
+    // Memory pressure  →  pool actions + system/memory events
+    // -------------------------------------------------------------------------
+
+    /** Swaps the registered trim callback; null context or policy just unregisters. */
+    private synchronized void setMemoryPolicy(Context context, MemoryPolicy policy) {
+        MemoryPolicy old = memoryPolicy;
+        Context oldContext = memoryContext;
+        if (old != null && oldContext != null) oldContext.unregisterComponentCallbacks(old);
+        MAIN.removeCallbacks(resumeRefills);
+
+        if (context == null || policy == null) {
+            memoryPolicy  = null;
+            memoryContext = null;
+            return;
+        }
+        context.registerComponentCallbacks(policy);
+        memoryPolicy  = policy;
+        memoryContext = context;
     }
 
+    private final MemoryPolicy.Actions memoryActions = new MemoryPolicy.Actions() {
+        @Override
+        public void apply(int actions, String level) {
+            int dropped = 0;
+            int released = 0;
+            for (AdUnit unit : units.all()) {
+                if ((actions & MemoryPolicy.PAUSE_REFILL) != 0) unit.pauseRefill();
+                if ((actions & MemoryPolicy.DROP_PRELOADED) != 0) dropped += unit.dropPreloaded();
+                if ((actions & MemoryPolicy.RELEASE_AD_OBJECTS) != 0) released += unit.releaseAdObjects();
+            }
+            // Every action leaves the pool paused or short; refill it (through the
+            // gate, like any refill) once the cooldown has passed or the app resumes.
+            MAIN.removeCallbacks(resumeRefills);
+            MAIN.postDelayed(resumeRefills, memoryCooldownMillis);
+            Log.i(TAG, "memory trim (" + level + ") – dropped " + dropped
+                    + " preloaded, released " + released + " ad objects");
+
+            for (int a = 0; a < MemoryPolicy.ACTIONS.length; a++) {
+                if ((actions & (1 << a)) != 0) {
+                    dispatchEvent(null, "system", "memory", false, MemoryPolicy.ACTIONS[a]);
+                }
+            }
+        }
+    };
+
+    /** End of a trim's cooldown; while suspended, onResumed() resumes instead. */
+    private final Runnable resumeRefills = new Runnable() {
+        @Override
+        public void run() {
+            if (suspended) return;
+            for (AdUnit unit : units.all()) unit.resumeRefill();
+        }
+    };
+
     // -------------------------------------------------------------------------
     // init(listener, options)
     // -------------------------------------------------------------------------
@@ -178,11 +791,43 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public int invoke(LuaState L) {
-            if (!CoronaLua.isListener(L, 1, "ironSource")) {
-                Log.e(TAG, "ironSource.init() – arg 1 must be a listener function");
+            // Read first so that this init() call is itself traced.
+            if (L.isTable(2)) {
+                L.getField(2, "tracing");
+                boolean tracing = L.isBoolean(-1) && L.toBoolean(-1);
+                L.pop(1);
+
+                L.getField(2, "traceBufferSize");
+                int capacity = L.isNumber(-1) ? L.toInteger(-1) : Tracer.DEFAULT_CAPACITY;
+                L.pop(1);
+
+                Tracer.configure(tracing, capacity);
+            }
+            if (!Tracer.enabled) return init(L);
+            long span = Tracer.begin("ironSource.init()");
+            try {
+                return init(L);
+            } finally {
+                Tracer.end("ironSource.init()", span);
+            }
+        }
+
+        private int init(LuaState L) {
+            int newRef;
+            if (L.isNoneOrNil(1)) {
+                // Events go to addEventListener() subscribers only.
+                newRef = CoronaLua.REFNIL;
+            } else if (CoronaLua.isListener(L, 1, "ironSource")) {
+                newRef = CoronaLua.newRef(L, 1);
+            } else {
+                Log.e(TAG, "ironSource.init() – arg 1 must be a listener function or nil");
                 return 0;
             }
-            listenerRef = CoronaLua.newRef(L, 1);
+            // A repeated init() replaces the listener; release the old registry entry.
+            int oldRef = listenerRef;
+            listenerRef = newRef;
+            if (oldRef != CoronaLua.REFNIL) CoronaLua.deleteRef(L, oldRef);
+            scheduleReplay();
 
             if (L.getTop() < 2 || !L.isTable(2)) {
                 Log.e(TAG, "ironSource.init() – arg 2 must be an options table");
@@ -208,179 +853,215 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             final String rewardedVideoAdUnitId = L.isString(-1) ? L.toString(-1) : null;
             L.pop(1);
 
+            final SdkSettings settings = new SdkSettings(appKey);
+
             L.getField(2, "userId");
-            final String userId = L.isString(-1) ? L.toString(-1) : null;
+            settings.userId = L.isString(-1) ? L.toString(-1) : null;
             L.pop(1);
 
             L.getField(2, "hasUserConsent");
-            final boolean hasConsent = L.isBoolean(-1) && L.toBoolean(-1);
+            settings.hasConsent = L.isBoolean(-1) && L.toBoolean(-1);
             L.pop(1);
 
             L.getField(2, "coppaUnderAge");
-            final boolean coppa = L.isBoolean(-1) && L.toBoolean(-1);
+            settings.coppa = L.isBoolean(-1) && L.toBoolean(-1);
             L.pop(1);
 
             L.getField(2, "ccpaDoNotSell");
-            final boolean ccpa = L.isBoolean(-1) && L.toBoolean(-1);
+            settings.ccpa = L.isBoolean(-1) && L.toBoolean(-1);
             L.pop(1);
 
             L.getField(2, "showDebugLog");
-            final boolean debug = L.isBoolean(-1) && L.toBoolean(-1);
+            settings.debug = L.isBoolean(-1) && L.toBoolean(-1);
+            L.pop(1);
+
+            L.getField(2, "deferInit");
+            final boolean deferInit = L.isBoolean(-1) && L.toBoolean(-1);
+            L.pop(1);
+
+            L.getField(2, "deferInitTimeout");
+            final long deferInitTimeout = L.isNumber(-1)
+                    ? (long) L.toNumber(-1) : DEFAULT_DEFER_INIT_TIMEOUT_MS;
+            L.pop(1);
+
+            final AdUnit.Options unitOptions = new AdUnit.Options();
+
+            L.getField(2, "poolSize");
+            if (L.isNumber(-1)) unitOptions.poolSize = L.toInteger(-1);
             L.pop(1);
 
-            // --- Run init on UI thread ---
+            L.getField(2, "adTtl");
+            unitOptions.ttlMillis = 1000L * (L.isNumber(-1)
+                    ? (long) L.toNumber(-1) : DEFAULT_AD_TTL_SECONDS);
+            L.pop(1);
+
+            L.getField(2, "autoReload");
+            if (L.isBoolean(-1)) unitOptions.autoReload = L.toBoolean(-1);
+            L.pop(1);
+
+            L.getField(2, "reloadMinDelay");
+            if (L.isNumber(-1)) unitOptions.reloadBaseDelayMillis = (long) L.toNumber(-1);
+            L.pop(1);
+
+            L.getField(2, "reloadMaxDelay");
+            if (L.isNumber(-1)) unitOptions.reloadMaxDelayMillis = (long) L.toNumber(-1);
+            L.pop(1);
+
+            L.getField(2, "showTimeout");
+            showTimeoutMillis = L.isNumber(-1) ? (long) L.toNumber(-1) : DEFAULT_SHOW_TIMEOUT_MS;
+            L.pop(1);
+
+            L.getField(2, "closeTimeout");
+            closeTimeoutMillis = L.isNumber(-1) ? (long) L.toNumber(-1) : DEFAULT_CLOSE_TIMEOUT_MS;
+            L.pop(1);
+
+            L.getField(2, "adaptivePreload");
+            unitOptions.adaptivePreload = L.isBoolean(-1) && L.toBoolean(-1);
+            L.pop(1);
+
+            L.getField(2, "preloadMinDelay");
+            if (L.isNumber(-1)) unitOptions.preloadMinDelayMillis = (long) L.toNumber(-1);
+            L.pop(1);
+
+            L.getField(2, "preloadMaxDelay");
+            if (L.isNumber(-1)) unitOptions.preloadMaxDelayMillis = (long) L.toNumber(-1);
+            L.pop(1);
+
+            L.getField(2, "batchEvents");
+            batchEvents = L.isBoolean(-1) && L.toBoolean(-1);
+            L.pop(1);
+
+            L.getField(2, "maxEventsPerFrame");
+            if (L.isNumber(-1)) {
+                maxEventsPerFrame = Math.max(1, L.toInteger(-1));
+            }
+            L.pop(1);
+
+            L.getField(2, "impressionLog");
+            final boolean logImpressions = L.isBoolean(-1) && L.toBoolean(-1);
+            L.pop(1);
+
+            L.getField(2, "impressionLogMaxBytes");
+            final long impressionLogMaxBytes = L.isNumber(-1)
+                    ? (long) L.toNumber(-1) : DEFAULT_IMPRESSION_LOG_MAX_BYTES;
+            L.pop(1);
+
+            L.getField(2, "memoryPolicy");
+            MemoryPolicy policy = null;
+            if (!L.isBoolean(-1) || L.toBoolean(-1)) {
+                policy = new MemoryPolicy(memoryActions);
+                if (L.isTable(-1)) readMemoryPolicy(L, L.getTop(), policy);
+            }
+            L.pop(1);
+
+            L.getField(2, "waitForNetwork");
+            final boolean waitForNetwork = !L.isBoolean(-1) || L.toBoolean(-1);
+            L.pop(1);
+
+            L.getField(2, "meteredPolicy");
+            int meteredPolicy = LoadGate.ALLOW;
+            if (L.isString(-1)) {
+                meteredPolicy = LoadGate.policyOf(L.toString(-1));
+                if (meteredPolicy < 0) {
+                    Log.w(TAG, "ironSource.init() – unknown meteredPolicy " + L.toString(-1));
+                    meteredPolicy = LoadGate.ALLOW;
+                }
+            }
+            L.pop(1);
+
+            L.getField(2, "reconnectBurstInterval");
+            final long burstInterval = L.isNumber(-1)
+                    ? (long) L.toNumber(-1) : DEFAULT_RECONNECT_BURST_INTERVAL_MS;
+            L.pop(1);
+
+            L.getField(2, "memoryCooldown");
+            memoryCooldownMillis = L.isNumber(-1)
+                    ? Math.max(0L, (long) L.toNumber(-1)) : DEFAULT_MEMORY_COOLDOWN_MS;
+            L.pop(1);
 
             final CoronaActivity activity = CoronaEnvironment.getCoronaActivity();
             if (activity == null) return 0;
 
+            setMemoryPolicy(activity.getApplicationContext(), policy);
+
+            LoadGate oldGate = loadGate;
+            loadGate = null;
+            if (oldGate != null) oldGate.stop();
+            if (waitForNetwork) {
+                NetworkStateSource source = networkSourceOverride;
+                if (source == null) source = new AndroidNetworkStateSource(activity.getApplicationContext());
+                LoadGate gate = new LoadGate(source, meteredPolicy, burstInterval);
+                gate.start();
+                loadGate = gate;
+            }
+            unitOptions.gate = loadGate;
+
+            ImpressionLog oldLog = impressionLog;
+            impressionLog = null;
+            if (oldLog != null) oldLog.close();
+            if (logImpressions) {
+                File dir = new File(activity.getApplicationContext().getFilesDir(), "ironSource");
+                impressionLog = new ImpressionLog(dir, impressionLogMaxBytes);
+            }
+
+            // --- Ad units exist from now on so that early load/show/isAvailable calls
+            //     are answered from their state; they start loading once the SDK is up ---
+
+            LuaLoader.this.unitOptions = unitOptions;
+            // Requests on the units being replaced would never resolve otherwise.
+            pending.completeAll("failed", true, "ad unit replaced by init()");
+            for (AdUnit old : units.clear()) old.clear();
+            // A deferral left by the last init() would start the SDK a second time,
+            // and the new units wait for this init's start, not the last one's.
+            cancelDeferredInit();
+            sdkStarted = false;
+            unitsInitialized = true;
+            if (interstitialAdUnitId != null && !interstitialAdUnitId.isEmpty()) {
+                addUnit(AdUnit.Format.INTERSTITIAL.luaName, AdUnit.Format.INTERSTITIAL,
+                        interstitialAdUnitId, unitOptions);
+            }
+            if (rewardedVideoAdUnitId != null && !rewardedVideoAdUnitId.isEmpty()) {
+                addUnit(AdUnit.Format.REWARDED.luaName, AdUnit.Format.REWARDED,
+                        rewardedVideoAdUnitId, unitOptions);
+            }
+            L.getField(2, "adUnits");
+            if (L.isTable(-1)) {
+                int n = L.length(-1);
+                for (int i = 1; i <= n; i++) {
+                    L.rawGet(-1, i);
+                    if (L.isTable(-1)) {
+                        addUnit(L, L.getTop(), unitOptions);
+                    }
+                    L.pop(1);
+                }
+            }
+            L.pop(1);
+            carryOverEarlyUnits(unitOptions);
+
+            if (deferInit) {
+                // --- Deferred: wait for rendered frames, then an idle UI looper ---
+                DeferredInit deferred = new DeferredInit(activity, settings, deferInitTimeout);
+                deferredInit = deferred;
+                deferred.schedule();
+                return 0;
+            }
+
+            // --- Privacy flags and init request are plain setters: apply on the Lua thread ---
+
+            final LevelPlayInitRequest initRequest;
+            try {
+                initRequest = settings.apply();
+            } catch (Exception e) {
+                Log.e(TAG, "ironSource.init() error: " + e.getMessage());
+                return 0;
+            }
+
+            // --- LevelPlay.init binds to the Activity: run it on the UI thread ---
+
             activity.runOnUiThread(new Runnable() {
                 @Override
                 public void run() {
-                    try {
-                        // Set privacy/consent flags BEFORE SDK init
-                        LevelPlay.setConsent(hasConsent);
-                        LevelPlay.setMetaData("is_coppa", coppa ? "true" : "false");
-                        LevelPlay.setMetaData("do_not_sell", ccpa ? "true" : "false");
-
-                        if (debug) {
-                            LevelPlay.setAdaptersDebug(true);
-                        }
-
-                        if (userId != null && !userId.isEmpty()) {
-                            LevelPlay.setDynamicUserId(userId);
-                        }
-
-                        // Build LevelPlayInitRequest
-                        LevelPlayInitRequest.Builder builder =
-                                new LevelPlayInitRequest.Builder(appKey);
-                        if (userId != null && !userId.isEmpty()) {
-                            builder = builder.withUserId(userId);
-                        }
-                        final LevelPlayInitRequest initRequest = builder.build();
-
-                        // Initialise LevelPlay SDK
-                        LevelPlay.init(activity, initRequest, new LevelPlayInitListener() {
-
-                            @Override
-                            public void onInitSuccess(LevelPlayConfiguration configuration) {
-                                Log.d(TAG, "LevelPlay SDK initialized successfully");
-                                dispatchEvent("init", "success", false, null);
-
-                                // ---- Interstitial ----
-                                if (interstitialAdUnitId != null && !interstitialAdUnitId.isEmpty()) {
-                                    interstitialAd = new LevelPlayInterstitialAd(interstitialAdUnitId);
-                                    interstitialAd.setListener(new LevelPlayInterstitialAdListener() {
-
-                                        @Override
-                                        public void onAdLoaded(LevelPlayAdInfo adInfo) {
-                                            dispatchEvent("interstitial", "loaded", false, null);
-                                        }
-
-                                        @Override
-                                        public void onAdLoadFailed(LevelPlayAdError error) {
-                                            dispatchEvent("interstitial", "show", true,
-                                                    error != null ? error.getErrorMessage() : "load failed");
-                                        }
-
-                                        @Override
-                                        public void onAdDisplayed(LevelPlayAdInfo adInfo) {
-                                            dispatchEvent("interstitial", "show", false, null);
-                                        }
-
-                                        @Override
-                                        public void onAdDisplayFailed(LevelPlayAdError error,
-                                                                      LevelPlayAdInfo adInfo) {
-                                            dispatchEvent("interstitial", "show", true,
-                                                    error != null ? error.getErrorMessage() : "show failed");
-                                        }
-
-                                        @Override
-                                        public void onAdClicked(LevelPlayAdInfo adInfo) {}
-
-                                        @Override
-                                        public void onAdClosed(LevelPlayAdInfo adInfo) {
-                                            dispatchEvent("interstitial", "closed", false, null);
-                                            // Auto-preload next interstitial
-                                            if (interstitialAd != null) {
-                                                interstitialAd.loadAd();
-                                            }
-                                        }
-
-                                        @Override
-                                        public void onAdInfoChanged(LevelPlayAdInfo adInfo) {}
-                                    });
-                                    // Start pre-loading immediately after init
-                                    interstitialAd.loadAd();
-                                }
-
-                                // ---- Rewarded ----
-                                if (rewardedVideoAdUnitId != null && !rewardedVideoAdUnitId.isEmpty()) {
-                                    rewardedAd = new LevelPlayRewardedAd(rewardedVideoAdUnitId);
-                                    rewardedAd.setListener(new LevelPlayRewardedAdListener() {
-
-                                        @Override
-                                        public void onAdLoaded(LevelPlayAdInfo adInfo) {
-                                            dispatchEvent("rewardedVideo", "available", false, null);
-                                        }
-
-                                        @Override
-                                        public void onAdLoadFailed(LevelPlayAdError error) {
-                                            dispatchEvent("rewardedVideo", "show", true,
-                                                    error != null ? error.getErrorMessage() : "load failed");
-                                        }
-
-                                        @Override
-                                        public void onAdDisplayed(LevelPlayAdInfo adInfo) {
-                                            dispatchEvent("rewardedVideo", "show", false, null);
-                                        }
-
-                                        @Override
-                                        public void onAdDisplayFailed(LevelPlayAdError error,
-                                                                      LevelPlayAdInfo adInfo) {
-                                            dispatchEvent("rewardedVideo", "show", true,
-                                                    error != null ? error.getErrorMessage() : "show failed");
-                                        }
-
-                                        @Override
-                                        public void onAdRewarded(LevelPlayReward reward,
-                                                                 LevelPlayAdInfo adInfo) {
-                                            String rewardName = (reward != null) ? reward.getName() : null;
-                                            dispatchEvent("rewardedVideo", "reward", false, rewardName);
-                                        }
-
-                                        @Override
-                                        public void onAdClicked(LevelPlayAdInfo adInfo) {}
-
-                                        @Override
-                                        public void onAdClosed(LevelPlayAdInfo adInfo) {
-                                            dispatchEvent("rewardedVideo", "closed", false, null);
-                                            // Auto-reload for next show
-                                            if (rewardedAd != null) {
-                                                rewardedAd.loadAd();
-                                            }
-                                        }
-
-                                        @Override
-                                        public void onAdInfoChanged(LevelPlayAdInfo adInfo) {}
-                                    });
-                                    // SDK 9.x: rewarded is NO LONGER auto-loaded; must call manually
-                                    rewardedAd.loadAd();
-                                }
-                            }
-
-                            @Override
-                            public void onInitFailed(LevelPlayInitError error) {
-                                String msg = (error != null)
-                                        ? (error.getErrorMessage() + " - " + error.getErrorCode())
-                                        : "unknown";
-                                Log.e(TAG, "LevelPlay SDK init failed: " + msg);
-                                dispatchEvent("init", "failed", true, msg);
-                            }
-                        });
-
-                    } catch (Exception e) {
-                        Log.e(TAG, "ironSource.init() error: " + e.getMessage());
-                    }
+                    startSdk(activity, initRequest);
                 }
             });
 
@@ -388,8 +1069,345 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         }
     }
 
+    /** Reads { [level] = "action" | { "action", ... } } at {@code index} into {@code policy}. */
+    private static void readMemoryPolicy(LuaState L, int index, MemoryPolicy policy) {
+        L.pushNil();
+        while (L.next(index)) {
+            // Only string keys; converting a numeric key in place would break next().
+            if (L.type(-2) == LuaType.STRING) {
+                String level = L.toString(-2);
+                int mask = 0;
+                if (L.isString(-1)) {
+                    mask = memoryAction(L.toString(-1));
+                } else if (L.isTable(-1)) {
+                    int n = L.length(-1);
+                    for (int i = 1; i <= n; i++) {
+                        L.rawGet(-1, i);
+                        if (L.isString(-1)) mask |= memoryAction(L.toString(-1));
+                        L.pop(1);
+                    }
+                }
+                if (!policy.set(level, mask)) {
+                    Log.w(TAG, "ironSource.init() – unknown memoryPolicy level " + level);
+                }
+            }
+            L.pop(1);
+        }
+    }
+
+    private static int memoryAction(String name) {
+        int bit = MemoryPolicy.actionBit(name);
+        if (bit >= 0) return bit;
+        Log.w(TAG, "ironSource.init() – unknown memoryPolicy action " + name);
+        return 0;
+    }
+
+    /** Privacy flags and init parameters collected from the init() options table. */
+    private static final class SdkSettings {
+        final String appKey;
+        String  userId;
+        boolean hasConsent;
+        boolean coppa;
+        boolean ccpa;
+        boolean debug;
+
+        SdkSettings(String appKey) { this.appKey = appKey; }
+
+        /** Applies the consent flags (they must precede init) and builds the request. */
+        LevelPlayInitRequest apply() {
+            long span = Tracer.enabled ? Tracer.begin("ironSource.consent") : 0L;
+            try {
+                applyConsent();
+            } finally {
+                if (span != 0L) Tracer.end("ironSource.consent", span);
+            }
+
+            // Build LevelPlayInitRequest
+            LevelPlayInitRequest.Builder builder =
+                    new LevelPlayInitRequest.Builder(appKey);
+            if (userId != null && !userId.isEmpty()) {
+                builder = builder.withUserId(userId);
+            }
+            return builder.build();
+        }
+
+        private void applyConsent() {
+            // Set privacy/consent flags BEFORE SDK init
+            LevelPlay.setConsent(hasConsent);
+            LevelPlay.setMetaData("is_coppa", coppa ? "true" : "false");
+            LevelPlay.setMetaData("do_not_sell", ccpa ? "true" : "false");
+
+            if (debug) {
+                LevelPlay.setAdaptersDebug(true);
+            }
+
+            if (userId != null && !userId.isEmpty()) {
+                LevelPlay.setDynamicUserId(userId);
+            }
+        }
+    }
+
+    /** UI thread. Initialises LevelPlay and starts the configured ad units on success. */
+    private void startSdk(CoronaActivity activity, LevelPlayInitRequest initRequest) {
+        final int initSpan = ++initCount;
+        long span = 0L;
+        if (Tracer.enabled) {
+            Tracer.beginAsync(INIT_SPAN, initSpan);
+            span = Tracer.begin("LevelPlay.init");
+        }
+        try {
+            // Initialise LevelPlay SDK
+            final long initStartedAt = SystemClock.elapsedRealtime();
+            LevelPlay.init(activity, initRequest, new LevelPlayInitListener() {
+
+                @Override
+                public void onInitSuccess(LevelPlayConfiguration configuration) {
+                    initLatency.record(SystemClock.elapsedRealtime() - initStartedAt);
+                    if (Tracer.enabled) Tracer.endAsync(INIT_SPAN, initSpan);
+                    Log.d(TAG, "LevelPlay SDK initialized successfully");
+                    dispatchEvent(null, "init", "success", false, null);
+
+                    // Start pre-loading immediately after init.
+                    // SDK 9.x: rewarded is NO LONGER auto-loaded; must call manually
+                    sdkStarted = true;
+                    for (AdUnit unit : units.all()) unit.start();
+                }
+
+                @Override
+                public void onInitFailed(LevelPlayInitError error) {
+                    initLatency.record(SystemClock.elapsedRealtime() - initStartedAt);
+                    if (Tracer.enabled) Tracer.endAsync(INIT_SPAN, initSpan);
+                    String msg = (error != null)
+                            ? (error.getErrorMessage() + " - " + error.getErrorCode())
+                            : "unknown";
+                    Log.e(TAG, "LevelPlay SDK init failed: " + msg);
+                    dispatchEvent(null, "init", "failed", true, msg);
+                }
+            });
+
+        } catch (Exception e) {
+            Log.e(TAG, "ironSource.init() error: " + e.getMessage());
+        } finally {
+            if (span != 0L) Tracer.end("LevelPlay.init", span);
+        }
+    }
+
+    /** Stops the last init()'s deferral before it reaches LevelPlay.init. */
+    private void cancelDeferredInit() {
+        DeferredInit deferred = deferredInit;
+        deferredInit = null;
+        if (deferred != null) deferred.cancel();
+    }
+
+    /**
+     * Opt-in deferred start: lets {@link #DEFER_INIT_FRAMES} Corona frames render,
+     * then runs the SDK setup the next time the UI looper goes idle. A timeout
+     * guarantees init still happens on a UI thread that never idles.
+     */
+    private final class DeferredInit implements CoronaRuntimeTask, MessageQueue.IdleHandler, Runnable {
+        private final CoronaActivity activity;
+        private final SdkSettings settings;
+        private final long timeoutMillis;
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private int framesLeft = DEFER_INIT_FRAMES;
+        private boolean started;   // UI thread only
+        private volatile boolean cancelled;
+
+        DeferredInit(CoronaActivity activity, SdkSettings settings, long timeoutMillis) {
+            this.activity      = activity;
+            this.settings      = settings;
+            this.timeoutMillis = Math.max(0L, timeoutMillis);
+        }
+
+        void schedule() {
+            CoronaRuntimeTaskDispatcher dispatcher = fDispatcher;
+            if (dispatcher != null) {
+                dispatcher.send(this);
+            } else {
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() { armIdle(); }
+                });
+            }
+        }
+
+        /**
+         * Any thread. Stops the deferral wherever it is; an idle handler that is
+         * already armed removes itself the next time the looper idles.
+         */
+        void cancel() {
+            cancelled = true;
+            handler.removeCallbacks(this);
+        }
+
+        /** Runtime thread, once per frame until enough frames have rendered. */
+        @Override
+        public void executeUsing(CoronaRuntime runtime) {
+            if (cancelled) return;
+            CoronaRuntimeTaskDispatcher dispatcher = fDispatcher;
+            if (--framesLeft > 0 && dispatcher != null) {
+                dispatcher.send(this);
+                return;
+            }
+            handler.post(new Runnable() {
+                @Override
+                public void run() { armIdle(); }
+            });
+        }
+
+        private void armIdle() {
+            if (cancelled) return;
+            Looper.myQueue().addIdleHandler(this);
+            handler.postDelayed(this, timeoutMillis);
+        }
+
+        @Override
+        public boolean queueIdle() {
+            handler.removeCallbacks(this);
+            start();
+            return false;
+        }
+
+        /** Timeout fallback. */
+        @Override
+        public void run() {
+            Looper.myQueue().removeIdleHandler(this);
+            start();
+        }
+
+        private void start() {
+            if (started || cancelled) return;
+            started = true;
+            final LevelPlayInitRequest initRequest;
+            try {
+                initRequest = settings.apply();
+            } catch (Exception e) {
+                Log.e(TAG, "ironSource.init() error: " + e.getMessage());
+                return;
+            }
+            startSdk(activity, initRequest);
+        }
+    }
+
     // -------------------------------------------------------------------------
-    // load(adUnitType)
+    // addEventListener(type, [phases,] listener)  →  boolean
+    // -------------------------------------------------------------------------
+
+    private class AddEventListenerWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "addEventListener"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            // Phases are optional: addEventListener(type, listener) subscribes to all of them.
+            int fn = (L.getTop() == 2) ? 2 : 3;
+            if (!L.isString(1) || !CoronaLua.isListener(L, fn, "ironSource")) {
+                Log.e(TAG, "ironSource.addEventListener() – expected (type, [phases,] listener)");
+                L.pushBoolean(false);
+                return 1;
+            }
+            String typeName = L.toString(1);
+            int type = "*".equals(typeName) ? -1 : EventSubscriptions.typeIndex(typeName);
+            if (type == EventSubscriptions.OTHER_TYPE) {
+                Log.w(TAG, "ironSource.addEventListener() – unknown event type " + typeName);
+                L.pushBoolean(false);
+                return 1;
+            }
+
+            int mask = 0;
+            if (fn == 2 || L.isNil(2)) {
+                mask = EventSubscriptions.ALL_PHASES;
+            } else if (L.isString(2)) {
+                mask = phaseMask(L.toString(2));
+            } else if (L.isTable(2)) {
+                int n = L.length(2);
+                for (int i = 1; i <= n; i++) {
+                    L.rawGet(2, i);
+                    if (L.isString(-1)) mask |= phaseMask(L.toString(-1));
+                    L.pop(1);
+                }
+            }
+            if (mask == 0) {
+                Log.w(TAG, "ironSource.addEventListener() – no known phases for " + typeName);
+                L.pushBoolean(false);
+                return 1;
+            }
+
+            subscriptions.add(CoronaLua.newRef(L, fn), type, mask);
+            scheduleReplay();
+            L.pushBoolean(true);
+            return 1;
+        }
+
+        private int phaseMask(String phase) {
+            int bit = EventSubscriptions.phaseMask(phase);
+            if (bit == 0) Log.w(TAG, "ironSource.addEventListener() – unknown phase " + phase);
+            return bit;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // removeEventListener(type, listener)  →  boolean
+    // -------------------------------------------------------------------------
+
+    private class RemoveEventListenerWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "removeEventListener"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            if (!L.isString(1) || L.isNoneOrNil(2)) {
+                L.pushBoolean(false);
+                return 1;
+            }
+            String typeName = L.toString(1);
+            int type = "*".equals(typeName) ? -1 : EventSubscriptions.typeIndex(typeName);
+
+            // "*" removes the listener from every type it was added to.
+            boolean removed = false;
+            for (EventSubscriptions.Subscription sub : subscriptions.all()) {
+                if (type >= 0 && sub.type != type) continue;
+                L.rawGet(LuaState.REGISTRYINDEX, sub.ref);
+                boolean same = L.rawEqual(-1, 2);
+                L.pop(1);
+                if (!same) continue;
+                subscriptions.remove(sub);
+                CoronaLua.deleteRef(L, sub.ref);
+                removed = true;
+            }
+            L.pushBoolean(removed);
+            return 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // createAdUnit({ key, format, adUnitId [, poolSize] })  →  boolean
+    // -------------------------------------------------------------------------
+
+    private class CreateAdUnitWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "createAdUnit"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            if (!L.isTable(1)) {
+                Log.e(TAG, "ironSource.createAdUnit() – arg 1 must be a table");
+                L.pushBoolean(false);
+                return 1;
+            }
+            AdUnit unit = addUnit(L, 1, unitOptions);
+            if (unit != null && !unitsInitialized) {
+                L.getField(1, "poolSize");
+                earlyUnits.add(new EarlyUnit(unit, L.isNumber(-1) ? L.toInteger(-1) : 0));
+                L.pop(1);
+            }
+            L.pushBoolean(unit != null);
+            return 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // load(unit)
     // -------------------------------------------------------------------------
 
     private class LoadWrapper implements NamedJavaFunction {
@@ -399,39 +1417,28 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         @Override
         public int invoke(LuaState L) {
             if (!L.isString(1)) {
-                Log.e(TAG, "ironSource.load() – arg 1 must be adUnitType string");
+                Log.e(TAG, "ironSource.load() – arg 1 must be an ad unit key string");
+                return 0;
+            }
+            // loadAd() is thread-safe and returns immediately; no UI-thread hop needed.
+            // Duplicate requests are coalesced by the unit's state machine.
+            AdUnit unit = units.get(L.toString(1));
+            if (unit == null) {
+                Log.e(TAG, "ironSource.load() – unknown ad unit: " + L.toString(1));
                 return 0;
             }
-            final String adUnitType = L.toString(1);
-            final CoronaActivity activity = CoronaEnvironment.getCoronaActivity();
-            if (activity == null) return 0;
 
-            activity.runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    if ("interstitial".equals(adUnitType)) {
-                        if (interstitialAd != null) {
-                            interstitialAd.loadAd();
-                        } else {
-                            Log.w(TAG, "ironSource.load(interstitial) – ad object not ready yet");
-                        }
-                    } else if ("rewardedVideo".equals(adUnitType)) {
-                        if (rewardedAd != null) {
-                            rewardedAd.loadAd();
-                        } else {
-                            Log.w(TAG, "ironSource.load(rewardedVideo) – ad object not ready yet");
-                        }
-                    } else {
-                        Log.e(TAG, "ironSource.load() – unknown adUnitType: " + adUnitType);
-                    }
-                }
-            });
+            PendingRequests.Request request = openRequest(L, PendingRequests.LOAD, unit);
+            if (request != null && unit.isAvailable()) {
+                pending.complete(request, "loaded", false, null);
+            }
+            unit.requestLoad();
             return 0;
         }
     }
 
     // -------------------------------------------------------------------------
-    // show(adUnitType [, options])
+    // show(unit [, options])
     // -------------------------------------------------------------------------
 
     private class ShowWrapper implements NamedJavaFunction {
@@ -441,10 +1448,15 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         @Override
         public int invoke(LuaState L) {
             if (!L.isString(1)) {
-                Log.e(TAG, "ironSource.show() – arg 1 must be adUnitType string");
+                Log.e(TAG, "ironSource.show() – arg 1 must be an ad unit key string");
+                return 0;
+            }
+            final String key = L.toString(1);
+            final AdUnit unit = units.get(key);
+            if (unit == null) {
+                Log.e(TAG, "ironSource.show() – unknown ad unit: " + key);
                 return 0;
             }
-            final String adUnitType = L.toString(1);
 
             String placement = null;
             if (L.getTop() >= 2 && L.isTable(2)) {
@@ -457,31 +1469,22 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             final CoronaActivity activity = CoronaEnvironment.getCoronaActivity();
             if (activity == null) return 0;
 
+            final PendingRequests.Request request = openRequest(L, PendingRequests.SHOW, unit);
+
+            // showAd() presents an Activity and must run on the UI thread.
             activity.runOnUiThread(new Runnable() {
                 @Override
                 public void run() {
-                    if ("interstitial".equals(adUnitType)) {
-                        if (interstitialAd != null && interstitialAd.isAdReady()) {
-                            if (finalPlacement != null && !finalPlacement.isEmpty()) {
-                                interstitialAd.showAd(activity, finalPlacement);
-                            } else {
-                                interstitialAd.showAd(activity);
-                            }
-                        } else {
-                            dispatchEvent("interstitial", "show", true, "not ready");
-                        }
-                    } else if ("rewardedVideo".equals(adUnitType)) {
-                        if (rewardedAd != null && rewardedAd.isAdReady()) {
-                            if (finalPlacement != null && !finalPlacement.isEmpty()) {
-                                rewardedAd.showAd(activity, finalPlacement);
-                            } else {
-                                rewardedAd.showAd(activity);
-                            }
-                        } else {
-                            dispatchEvent("rewardedVideo", "show", true, "not available");
-                        }
-                    } else {
-                        Log.e(TAG, "ironSource.show() – unknown adUnitType: " + adUnitType);
+                    if (unit.getState() == AdUnit.State.SHOWING) {
+                        // Coalesce: the ad already on screen will report its own events and
+                        // resolve this request along with its own. Its watchdog stays with the
+                        // request that started it; this one must not release that ad.
+                        if (request != null) pending.coalesce(request, unit.isDisplayed());
+                        Log.d(TAG, "ironSource.show(" + key + ") – already showing, ignored");
+                    } else if (!showFreshest(unit, activity, finalPlacement)) {
+                        String msg = unit.format == AdUnit.Format.REWARDED ? "not available" : "not ready";
+                        dispatchEvent(unit.key, unit.format.luaName, "show", true, msg);
+                        if (request != null) pending.complete(request, "failed", true, msg);
                     }
                 }
             });
@@ -490,7 +1493,189 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
     }
 
     // -------------------------------------------------------------------------
-    // isAvailable(adUnitType)  →  boolean
+    // Completion callbacks for load()/show()
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reads { timeout, closeTimeout, onComplete } from the options table at arg 2.
+     * A show without its own timeouts gets the init() defaults.
+     *
+     * @return null unless a callback or a timeout applies
+     */
+    private PendingRequests.Request openRequest(LuaState L, int kind, AdUnit unit) {
+        // Every show is watched, so a lost callback can never leave a unit stuck in SHOWING.
+        long timeout      = (kind == PendingRequests.SHOW) ? showTimeoutMillis  : 0L;
+        long closeTimeout = (kind == PendingRequests.SHOW) ? closeTimeoutMillis : 0L;
+        int callbackRef = CoronaLua.REFNIL;
+
+        if (L.getTop() >= 2 && L.isTable(2)) {
+            L.getField(2, "timeout");
+            if (L.isNumber(-1)) timeout = (long) L.toNumber(-1);
+            L.pop(1);
+
+            L.getField(2, "closeTimeout");
+            if (L.isNumber(-1)) closeTimeout = (long) L.toNumber(-1);
+            L.pop(1);
+
+            L.getField(2, "onComplete");
+            if (L.isFunction(-1)) callbackRef = CoronaLua.newRef(L, -1);
+            L.pop(1);
+        }
+
+        if (callbackRef == CoronaLua.REFNIL && timeout <= 0 && closeTimeout <= 0) return null;
+        PendingRequests.Request request = pending.add(kind, unit, callbackRef, timeout, closeTimeout);
+        if (Tracer.enabled) Tracer.beginAsync(request.spanName(), request.id);
+        return request;
+    }
+
+    /**
+     * Any thread. Calls the request's onComplete (once) on the runtime thread,
+     * in order with the events: it queues and is held back with them, so it
+     * never overtakes the events of its own load or show. Held events wait for
+     * a listener; an onComplete only waits for the runtime.
+     */
+    private void completeRequest(final PendingRequests.Request request, final String result,
+                                 final boolean isError, final String message) {
+        if (Tracer.enabled) Tracer.endAsync(request.spanName(), request.id);
+        if (request.callbackRef == CoronaLua.REFNIL) return;
+        CoronaRuntimeTaskDispatcher dispatcher = fDispatcher;
+        if (dispatcher == null) {
+            Log.w(TAG, "ironSource." + request.requestName() + " onComplete dropped – no runtime");
+            return;
+        }
+        final String key   = request.unit.key;
+        final String type  = request.unit.format.luaName;
+        final String phase = request.requestName();
+
+        if (suspended || (hasListeners() ? !replay.isEmpty() : replay.hasCompletions())) {
+            holdEvent(key, type, phase, isError, message, null, request, result);
+            return;
+        }
+
+        if (batchEvents && enqueueEvent(key, type, phase, isError, message, null, request, result)) return;
+
+        dispatcher.send(new CoronaRuntimeTask() {
+            @Override
+            public void executeUsing(CoronaRuntime runtime) {
+                LuaState L = (runtime != null) ? runtime.getLuaState() : null;
+                if (L == null) return;
+                pushCompletion(L, request, result, isError, message);
+            }
+        });
+    }
+
+    /** Runtime thread. Builds the onComplete event and releases the callback's ref. */
+    private static void pushCompletion(LuaState L, PendingRequests.Request request, String result,
+                                       boolean isError, String message) {
+        CoronaLua.newEvent(L, "ironSource");
+
+        L.pushString(request.unit.key);
+        L.setField(-2, "unit");
+
+        L.pushString(request.unit.format.luaName);
+        L.setField(-2, "type");
+
+        L.pushString(request.requestName());
+        L.setField(-2, "phase");
+
+        L.pushString(result);
+        L.setField(-2, "result");
+
+        L.pushBoolean(isError);
+        L.setField(-2, "isError");
+
+        if (message != null) {
+            L.pushString(message);
+            L.setField(-2, "response");
+        }
+
+        try {
+            CoronaLua.dispatchEvent(L, request.callbackRef, 0);
+        } catch (Exception e) {
+            Log.e(TAG, "Error in ironSource onComplete: " + e.getMessage());
+        } finally {
+            CoronaLua.deleteRef(L, request.callbackRef);
+        }
+    }
+
+    /**
+     * Lua thread. Re-registers units created before the first init() with
+     * init's options, unless init() defined the same key itself.
+     */
+    private void carryOverEarlyUnits(AdUnit.Options options) {
+        for (EarlyUnit early : earlyUnits) {
+            AdUnit old = early.unit;
+            AdUnit same = units.get(old.key);
+            if (same != null && same.key.equals(old.key)) continue;
+            AdUnit.Options o = options;
+            if (early.poolSize > 0) {
+                o = options.copy();
+                o.poolSize = early.poolSize;
+            }
+            addUnit(old.key, old.format, old.adUnitId, o);
+        }
+        earlyUnits.clear();
+    }
+
+    /** Creates and registers a unit; starts it right away if the SDK is already up. */
+    private AdUnit addUnit(String key, AdUnit.Format format, String adUnitId, AdUnit.Options options) {
+        AdUnit unit = new AdUnit(key, format, adUnitId, options, unitEvents);
+        AdUnit replaced = units.put(unit);
+        if (replaced != null) replaced.clear();
+        if (sdkStarted) unit.start();
+        return unit;
+    }
+
+    /**
+     * Reads { key, format, adUnitId [, poolSize] } at {@code index} and registers the unit.
+     *
+     * @return null (after logging) if the entry is invalid
+     */
+    private AdUnit addUnit(LuaState L, int index, AdUnit.Options defaults) {
+        L.getField(index, "adUnitId");
+        String adUnitId = L.isString(-1) ? L.toString(-1) : null;
+        L.pop(1);
+
+        L.getField(index, "format");
+        AdUnit.Format format = L.isString(-1) ? AdUnit.Format.fromLua(L.toString(-1)) : null;
+        L.pop(1);
+
+        L.getField(index, "key");
+        String key = L.isString(-1) ? L.toString(-1) : adUnitId;
+        L.pop(1);
+
+        if (adUnitId == null || adUnitId.isEmpty() || format == null) {
+            Log.e(TAG, "ironSource – ad unit needs adUnitId and format \"interstitial\" | \"rewardedVideo\"");
+            return null;
+        }
+
+        AdUnit.Options options = defaults;
+        L.getField(index, "poolSize");
+        if (L.isNumber(-1)) {
+            options = defaults.copy();
+            options.poolSize = L.toInteger(-1);
+        }
+        L.pop(1);
+
+        return addUnit(key, format, adUnitId, options);
+    }
+
+    /** UI thread. @return false if the unit had no ready, unexpired instance */
+    private static boolean showFreshest(AdUnit unit, CoronaActivity activity, String placement) {
+        if (unit == null) return false;
+        AdUnit.Slot slot = unit.takeReady();
+        if (slot == null) return false;
+        if (!Tracer.enabled) return slot.show(activity, placement);
+        long span = Tracer.begin("LevelPlay.showAd");
+        try {
+            return slot.show(activity, placement);
+        } finally {
+            Tracer.end("LevelPlay.showAd", span);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // isAvailable(unit)  →  boolean
     // -------------------------------------------------------------------------
 
     private class IsAvailableWrapper implements NamedJavaFunction {
@@ -503,14 +1688,181 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                 L.pushBoolean(false);
                 return 1;
             }
-            final String adUnitType = L.toString(1);
-            boolean available = false;
-            if ("interstitial".equals(adUnitType)) {
-                available = interstitialAd != null && interstitialAd.isAdReady();
-            } else if ("rewardedVideo".equals(adUnitType)) {
-                available = rewardedAd != null && rewardedAd.isAdReady();
+            // Reads the unit's published readiness snapshot; no SDK call, no lock.
+            AdUnit unit = units.get(L.toString(1));
+            L.pushBoolean(unit != null && unit.isAvailable());
+            return 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // getAvailability()  →  { [unit] = bool, ... }
+    // -------------------------------------------------------------------------
+
+    private class GetAvailabilityWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "getAvailability"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            AdUnit[] all = units.all();
+            L.newTable(0, all.length);
+            for (AdUnit unit : all) {
+                L.pushBoolean(unit.isAvailable());
+                L.setField(-2, unit.key);
+            }
+            return 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // getState(unit)  →  string | nil
+    // -------------------------------------------------------------------------
+
+    private class GetStateWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "getState"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            AdUnit unit = L.isString(1) ? units.get(L.toString(1)) : null;
+            if (unit == null) {
+                L.pushNil();
+            } else {
+                L.pushString(unit.getState().luaName);
+            }
+            return 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // getStats()  →  { init = histogram, units = { [unit] = stats }, events = { held, dropped } }
+    // -------------------------------------------------------------------------
+
+    private class GetStatsWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "getStats"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            L.newTable();
+
+            initLatency.push(L);
+            L.setField(-2, "init");
+
+            AdUnit[] all = units.all();
+            L.newTable(0, all.length);
+            for (AdUnit unit : all) {
+                unit.stats.push(L);
+                PreloadPlanner preload = unit.preload();
+                if (preload != null) {
+                    preload.push(L);
+                    L.setField(-2, "preload");
+                }
+                L.setField(-2, unit.key);
+            }
+            L.setField(-2, "units");
+
+            L.newTable(0, 2);
+            L.pushInteger(replay.size());
+            L.setField(-2, "held");
+            L.pushNumber(eventsDropped.get());
+            L.setField(-2, "dropped");
+            L.setField(-2, "events");
+
+            MemoryPolicy policy = memoryPolicy;
+            if (policy != null) {
+                policy.push(L);
+                L.setField(-2, "memory");
+            }
+
+            LoadGate gate = loadGate;
+            if (gate != null) {
+                gate.push(L);
+                L.setField(-2, "network");
+            }
+            return 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // resetStats()
+    // -------------------------------------------------------------------------
+
+    private class ResetStatsWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "resetStats"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            initLatency.reset();
+            for (AdUnit unit : units.all()) {
+                unit.stats.reset();
+                PreloadPlanner preload = unit.preload();
+                if (preload != null) preload.resetStats();
+            }
+            eventsDropped.set(0);
+            MemoryPolicy policy = memoryPolicy;
+            if (policy != null) policy.reset();
+            LoadGate gate = loadGate;
+            if (gate != null) gate.resetStats();
+            return 0;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // getImpressions([cursor [, limit]])  →  { records = { ... }, cursor [, resynced] }
+    // -------------------------------------------------------------------------
+
+    private class GetImpressionsWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "getImpressions"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            String cursor = L.isString(1) ? L.toString(1) : null;
+            int    limit  = L.isNumber(2) ? L.toInteger(2) : DEFAULT_IMPRESSION_PAGE;
+
+            ImpressionLog log = impressionLog;
+            if (log == null) {
+                L.newTable();
+                L.newTable();
+                L.setField(-2, "records");
+                return 1;
             }
-            L.pushBoolean(available);
+            // Reads one bounded page of already-flushed records.
+            log.pushPage(L, cursor, limit);
+            return 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // clearImpressions()
+    // -------------------------------------------------------------------------
+
+    private class ClearImpressionsWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "clearImpressions"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            ImpressionLog log = impressionLog;
+            if (log != null) log.clear();
+            return 0;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // getTrace([clear])  →  { mode, dropped, spans = { ... } }
+    // -------------------------------------------------------------------------
+
+    private class GetTraceWrapper implements NamedJavaFunction {
+        @Override
+        public String getName() { return "getTrace"; }
+
+        @Override
+        public int invoke(LuaState L) {
+            Tracer.push(L, L.isBoolean(1) && L.toBoolean(1));
             return 1;
         }
     }
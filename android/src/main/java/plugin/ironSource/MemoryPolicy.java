@@ -0,0 +1,147 @@
+// ----------------------------------------------------------------------------
+// MemoryPolicy.java  –  maps ComponentCallbacks2 trim levels to ad pool actions
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import com.naef.jnlua.LuaState;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registered on the application context; turns memory trim callbacks into
+ * a bitmask of {@link #PAUSE_REFILL}, {@link #DROP_PRELOADED} and
+ * {@link #RELEASE_AD_OBJECTS} and hands it to {@link Actions}.
+ *
+ * Each trim level has its own mask. Levels the platform adds later fall back
+ * to the nearest known level below them; {@code onLowMemory()} counts as
+ * {@code complete}. Masks are set on the Lua thread before registration and
+ * only read afterwards.
+ *
+ * Default policy:
+ *   runningLow      → pauseRefill
+ *   runningCritical → pauseRefill, dropPreloaded
+ *   moderate        → dropPreloaded
+ *   complete        → dropPreloaded, releaseAdObjects
+ */
+final class MemoryPolicy implements ComponentCallbacks2 {
+
+    /** Hold back new loads until the cooldown passes or the app resumes. */
+    static final int PAUSE_REFILL       = 1;
+    /** Discard loaded instances (and the creatives they hold). */
+    static final int DROP_PRELOADED     = 1 << 1;
+    /** Discard every idle ad object; rebuilt on the next load. */
+    static final int RELEASE_AD_OBJECTS = 1 << 2;
+
+    static final String[] ACTIONS = { "pauseRefill", "dropPreloaded", "releaseAdObjects" };
+
+    static final String[] LEVEL_NAMES = {
+            "runningModerate", "runningLow", "runningCritical", "uiHidden",
+            "background", "moderate", "complete"
+    };
+    private static final int[] LEVELS = {
+            TRIM_MEMORY_RUNNING_MODERATE, TRIM_MEMORY_RUNNING_LOW, TRIM_MEMORY_RUNNING_CRITICAL,
+            TRIM_MEMORY_UI_HIDDEN, TRIM_MEMORY_BACKGROUND, TRIM_MEMORY_MODERATE,
+            TRIM_MEMORY_COMPLETE
+    };
+
+    interface Actions {
+        /** Main thread. {@code actions} is non-zero. */
+        void apply(int actions, String level);
+    }
+
+    private final Actions actions;
+    private final int[] masks = new int[LEVELS.length];
+
+    /** Per-action counts, then one slot for the number of trims that acted. */
+    private final AtomicLongArray counts = new AtomicLongArray(ACTIONS.length + 1);
+    private volatile String lastLevel;
+
+    MemoryPolicy(Actions actions) {
+        this.actions = actions;
+        set("runningLow",      PAUSE_REFILL);
+        set("runningCritical", PAUSE_REFILL | DROP_PRELOADED);
+        set("moderate",        DROP_PRELOADED);
+        set("complete",        DROP_PRELOADED | RELEASE_AD_OBJECTS);
+    }
+
+    /** @return false for an unknown level name */
+    boolean set(String level, int mask) {
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            if (LEVEL_NAMES[i].equals(level)) {
+                masks[i] = mask;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the action's bit, 0 for "none", or -1 if unknown */
+    static int actionBit(String name) {
+        if ("none".equals(name)) return 0;
+        for (int i = 0; i < ACTIONS.length; i++) {
+            if (ACTIONS[i].equals(name)) return 1 << i;
+        }
+        return -1;
+    }
+
+    // -------------------------------------------------------------------------
+    // ComponentCallbacks2
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void onTrimMemory(int level) {
+        int i = LEVELS.length - 1;
+        while (i > 0 && LEVELS[i] > level) i--;
+        if (LEVELS[i] > level) return;   // below the mildest level we know
+
+        int mask = masks[i];
+        if (mask == 0) return;
+        lastLevel = LEVEL_NAMES[i];
+        counts.incrementAndGet(ACTIONS.length);
+        for (int a = 0; a < ACTIONS.length; a++) {
+            if ((mask & (1 << a)) != 0) counts.incrementAndGet(a);
+        }
+        actions.apply(mask, LEVEL_NAMES[i]);
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {}
+
+    // -------------------------------------------------------------------------
+    // Stats
+    // -------------------------------------------------------------------------
+
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        lastLevel = null;
+    }
+
+    /** Pushes { trims, pauseRefill, dropPreloaded, releaseAdObjects, lastLevel }. */
+    void push(LuaState L) {
+        L.newTable(0, ACTIONS.length + 2);
+
+        L.pushNumber(counts.get(ACTIONS.length));
+        L.setField(-2, "trims");
+
+        for (int a = 0; a < ACTIONS.length; a++) {
+            L.pushNumber(counts.get(a));
+            L.setField(-2, ACTIONS[a]);
+        }
+
+        String level = lastLevel;
+        if (level != null) {
+            L.pushString(level);
+            L.setField(-2, "lastLevel");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+// ----------------------------------------------------------------------------
+// NetworkStateSource.java  –  pluggable view of device connectivity
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+/**
+ * Where {@link LoadGate} learns whether loads can reach the network.
+ *
+ * The plugin uses {@link AndroidNetworkStateSource}; anything else (a fake
+ * driven by a test or benchmark) can be installed with
+ * {@link LuaLoader#setNetworkStateSource} before init().
+ */
+interface NetworkStateSource {
+
+    int OFFLINE   = 0;
+    int UNMETERED = 1;
+    int METERED   = 2;
+
+    interface Listener {
+        /** Any thread. Called on every change; {@code state} is one of the constants above. */
+        void onNetworkStateChanged(int state);
+    }
+
+    /** Current state; sources that cannot tell report {@link #UNMETERED}. */
+    int current();
+
+    void start(Listener listener);
+
+    void stop();
+}
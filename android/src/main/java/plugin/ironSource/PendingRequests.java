@@ -0,0 +1,220 @@
+// ----------------------------------------------------------------------------
+// PendingRequests.java  –  load/show calls awaiting an outcome or a timeout
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+
+/**
+ * Tracks {@code load(unit, { timeout, onComplete })} and
+ * {@code show(unit, { timeout, closeTimeout, onComplete })} until each one
+ * resolves exactly once: by the matching ad unit callback or by a timeout on
+ * the main looper.
+ *
+ *   load → "loaded" | "failed" | "timeout"   (timeout: no load outcome in time)
+ *   show → "closed" | "failed" | "timeout"   (timeout: not displayed in time,
+ *                                            or not closed within closeTimeout)
+ *
+ * A show that is never displayed, or never closed, is the watchdog case: the
+ * caller is told via {@link Completion#onDisplayTimeout} or
+ * {@link Completion#onCloseTimeout} so it can release the stuck unit. A show()
+ * made while the unit is already showing rides along with that show
+ * ({@link #coalesce}): the show's callbacks resolve it, and its own timeouts
+ * only complete it, never release the unit.
+ */
+final class PendingRequests {
+
+    static final int LOAD = 0;
+    static final int SHOW = 1;
+
+    interface Completion {
+        /** Any thread. Called once per request, after it has been removed. */
+        void onComplete(Request request, String result, boolean isError, String message);
+        /** Main thread. A show was not displayed within its timeout. */
+        void onDisplayTimeout(AdUnit unit);
+        /** Main thread. A displayed show was not closed within its closeTimeout. */
+        void onCloseTimeout(AdUnit unit);
+    }
+
+    static final class Request {
+        /** Unique per PendingRequests; the cookie of the request's trace span. */
+        final int    id;
+        final int    kind;
+        final AdUnit unit;
+        /** Lua registry reference to onComplete, or CoronaLua.REFNIL. */
+        final int    callbackRef;
+        final long   closeTimeoutMillis;
+        /** Guarded by the owning PendingRequests. */
+        boolean displayed;
+        /** Joined a show started by another request; guarded by the owning PendingRequests. */
+        boolean coalesced;
+        Runnable timeout;
+
+        Request(int id, int kind, AdUnit unit, int callbackRef, long closeTimeoutMillis) {
+            this.id                 = id;
+            this.kind               = kind;
+            this.unit               = unit;
+            this.callbackRef        = callbackRef;
+            this.closeTimeoutMillis = closeTimeoutMillis;
+        }
+
+        String requestName() { return kind == LOAD ? "load" : "show"; }
+
+        String spanName() { return "ironSource." + requestName() + "() " + unit.key; }
+    }
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private final Completion completion;
+    /** Open requests, oldest first. Guarded by {@code this}. */
+    private final ArrayList<Request> open = new ArrayList<>();
+    /** Guarded by {@code this}. */
+    private int nextId;
+
+    PendingRequests(Completion completion) {
+        this.completion = completion;
+    }
+
+    /**
+     * Opens a request. A non-positive {@code timeoutMillis} waits indefinitely.
+     */
+    Request add(int kind, AdUnit unit, int callbackRef, long timeoutMillis, long closeTimeoutMillis) {
+        Request r;
+        synchronized (this) {
+            r = new Request(++nextId, kind, unit, callbackRef, Math.max(0L, closeTimeoutMillis));
+            open.add(r);
+            if (timeoutMillis > 0) arm(r, timeoutMillis);
+        }
+        return r;
+    }
+
+    /** Resolves {@code r} now (e.g. show() found nothing ready). */
+    void complete(Request r, String result, boolean isError, String message) {
+        synchronized (this) {
+            if (!open.remove(r)) return;
+            disarm(r);
+        }
+        completion.onComplete(r, result, isError, message);
+    }
+
+    // -------------------------------------------------------------------------
+    // Ad unit outcomes (SDK threads)
+    // -------------------------------------------------------------------------
+
+    void onLoaded(AdUnit unit)                    { resolve(unit, LOAD, "loaded", false, null); }
+
+    void onLoadFailed(AdUnit unit, String msg)    { resolve(unit, LOAD, "failed", true, msg); }
+
+    void onDisplayFailed(AdUnit unit, String msg) { resolve(unit, SHOW, "failed", true, msg); }
+
+    void onClosed(AdUnit unit)                    { resolve(unit, SHOW, "closed", false, null); }
+
+    /** Display stops the show watchdog; closeTimeout, if any, starts now. */
+    void onDisplayed(AdUnit unit) {
+        synchronized (this) {
+            for (Request r : open) {
+                if (r.unit != unit || r.kind != SHOW || r.displayed) continue;
+                r.displayed = true;
+                disarm(r);
+                if (r.closeTimeoutMillis > 0) arm(r, r.closeTimeoutMillis);
+            }
+        }
+    }
+
+    /**
+     * {@code r} did not start a show; the unit was already showing. If that
+     * show is on screen, {@code r} counts as displayed (its closeTimeout, if
+     * any, starts now), since no onAdDisplayed will come for it.
+     */
+    void coalesce(Request r, boolean alreadyDisplayed) {
+        synchronized (this) {
+            if (!open.contains(r)) return;
+            r.coalesced = true;
+            if (!alreadyDisplayed || r.displayed) return;
+            r.displayed = true;
+            disarm(r);
+            if (r.closeTimeoutMillis > 0) arm(r, r.closeTimeoutMillis);
+        }
+    }
+
+    /** Resolves every open request now (their ad units are being replaced). */
+    void completeAll(String result, boolean isError, String message) {
+        ArrayList<Request> done;
+        synchronized (this) {
+            if (open.isEmpty()) return;
+            for (Request r : open) disarm(r);
+            done = new ArrayList<>(open);
+            open.clear();
+        }
+        for (Request r : done) completion.onComplete(r, result, isError, message);
+    }
+
+    /** Drops every open request without completing it (runtime exiting). */
+    synchronized void clear() {
+        for (Request r : open) disarm(r);
+        open.clear();
+    }
+
+    // -------------------------------------------------------------------------
+
+    private void resolve(AdUnit unit, int kind, String result, boolean isError, String message) {
+        ArrayList<Request> done = null;
+        synchronized (this) {
+            for (int i = 0; i < open.size(); i++) {
+                Request r = open.get(i);
+                if (r.unit != unit || r.kind != kind) continue;
+                disarm(r);
+                if (done == null) done = new ArrayList<>(2);
+                done.add(r);
+                open.remove(i--);
+            }
+        }
+        if (done == null) return;
+        for (Request r : done) completion.onComplete(r, result, isError, message);
+    }
+
+    /** Caller holds the lock. */
+    private void arm(final Request r, long delayMillis) {
+        r.timeout = new Runnable() {
+            @Override
+            public void run() { timedOut(r, this); }
+        };
+        MAIN.postDelayed(r.timeout, delayMillis);
+    }
+
+    /** Caller holds the lock. */
+    private void disarm(Request r) {
+        if (r.timeout == null) return;
+        MAIN.removeCallbacks(r.timeout);
+        r.timeout = null;
+    }
+
+    /** Main thread. */
+    private void timedOut(Request r, Runnable task) {
+        boolean displayed;
+        boolean coalesced;
+        synchronized (this) {
+            // A callback may have re-armed or resolved the request in the meantime.
+            if (r.timeout != task || !open.remove(r)) return;
+            r.timeout = null;
+            displayed = r.displayed;
+            coalesced = r.coalesced;
+        }
+        String message;
+        if (r.kind == LOAD) {
+            message = "load timed out";
+        } else if (!displayed) {
+            message = "display timed out";
+            if (!coalesced) completion.onDisplayTimeout(r.unit);
+        } else {
+            message = "close timed out";
+            if (!coalesced) completion.onCloseTimeout(r.unit);
+        }
+        completion.onComplete(r, "timeout", true, message);
+    }
+}
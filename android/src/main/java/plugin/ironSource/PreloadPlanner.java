@@ -0,0 +1,209 @@
+// ----------------------------------------------------------------------------
+// PreloadPlanner.java  –  just-in-time refills from the observed show cadence
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.naef.jnlua.LuaState;
+
+/**
+ * Decides when a unit refills after a show. It learns two things per session:
+ * the interval between show requests and the load latency. Both are
+ * exponentially weighted moving averages. The refill is timed to finish
+ * shortly before the next predicted show:
+ *
+ *   loadAt = lastShow + interval − latency × LATENCY_SAFETY − LEAD_MS
+ *
+ * The delay is capped at {@code maxDelay}. A delay shorter than
+ * {@code minDelay} is not worth a timer, so the unit loads at once. Until
+ * {@link #MIN_SAMPLES} intervals have been seen, every refill is immediate,
+ * which is the non-adaptive behaviour.
+ *
+ * A show request that finds nothing ready is a miss. The unit refills at once,
+ * and the short interval pulls the estimate down for the next time. Explicit
+ * load() calls always bypass the plan. While the app is suspended a deferred
+ * refill is held; on resume it is re-planned from the time left, and loads at
+ * once if that is under {@code minDelay}.
+ */
+final class PreloadPlanner {
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    /** Weight of the newest observation. */
+    private static final double ALPHA = 0.3;
+    /** Show intervals needed before refills are deferred. */
+    static final int MIN_SAMPLES = 2;
+    /** Start this much earlier than the mean load latency alone suggests. */
+    private static final double LATENCY_SAFETY = 1.5;
+    /** Fixed margin before the predicted show. */
+    private static final long LEAD_MS = 2000;
+
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final Runnable refill;
+
+    // All guarded by {@code this}.
+    private double  intervalMs;
+    private int     intervals;
+    private long    lastShowAt;   // uptimeMillis, 0 before the first show
+    private double  loadLatencyMs;
+    private int     latencies;
+    private boolean pending;
+    private boolean paused;
+    private long    dueAt;        // uptimeMillis
+
+    // Decisions, for getStats(); guarded by {@code this}.
+    private long deferred;
+    private long immediate;
+    private long hits;
+    private long misses;
+    private long lastDelay;
+
+    private final Runnable fire = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (PreloadPlanner.this) {
+                if (!pending || paused) return;
+                pending = false;
+            }
+            refill.run();
+        }
+    };
+
+    PreloadPlanner(long minDelayMillis, long maxDelayMillis, Runnable refill) {
+        this.minDelayMillis = Math.max(0L, minDelayMillis);
+        this.maxDelayMillis = Math.max(this.minDelayMillis, maxDelayMillis);
+        this.refill         = refill;
+    }
+
+    /**
+     * A show was requested. {@code hit} is true if an instance was ready. On a
+     * miss, any deferred refill is cancelled because the caller loads now.
+     */
+    synchronized void onShowRequested(boolean hit) {
+        long now = SystemClock.uptimeMillis();
+        if (lastShowAt != 0) {
+            // A long break (menu, background) shouldn't dominate the estimate.
+            long observed = Math.min(now - lastShowAt, 2 * maxDelayMillis);
+            intervalMs = (intervals == 0) ? observed : intervalMs + ALPHA * (observed - intervalMs);
+            intervals++;
+        }
+        lastShowAt = now;
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+            cancel();
+        }
+    }
+
+    /** loadAd() → onAdLoaded took {@code millis}. */
+    synchronized void onLoaded(long millis) {
+        loadLatencyMs = (latencies == 0) ? millis : loadLatencyMs + ALPHA * (millis - loadLatencyMs);
+        latencies++;
+    }
+
+    /**
+     * Plans the refill after a show. A deferred refill runs the refill
+     * runnable on the main thread later. If one is already pending, the
+     * earlier deadline wins.
+     *
+     * @return 0 if the caller should refill now, else the delay in ms
+     */
+    synchronized long plan() {
+        long delay = 0;
+        if (intervals >= MIN_SAMPLES) {
+            long now    = SystemClock.uptimeMillis();
+            long loadAt = lastShowAt + (long) intervalMs
+                    - (long) (loadLatencyMs * LATENCY_SAFETY) - LEAD_MS;
+            delay = Math.min(maxDelayMillis, loadAt - now);
+            if (delay < minDelayMillis) delay = 0;
+            if (pending) delay = Math.min(delay, Math.max(0L, dueAt - now));
+        }
+        lastDelay = delay;
+        if (delay <= 0) {
+            immediate++;
+            cancel();
+            return 0;
+        }
+        deferred++;
+        MAIN.removeCallbacks(fire);
+        pending = true;
+        dueAt   = SystemClock.uptimeMillis() + delay;
+        if (!paused) MAIN.postDelayed(fire, delay);
+        return delay;
+    }
+
+    /** Drops a deferred refill (explicit load, miss, or the unit is cleared). */
+    synchronized void cancel() {
+        if (!pending) return;
+        pending = false;
+        MAIN.removeCallbacks(fire);
+    }
+
+    /** App suspended: keep a deferred refill but don't let it fire. */
+    synchronized void pause() {
+        if (paused) return;
+        paused = true;
+        MAIN.removeCallbacks(fire);
+    }
+
+    /** App resumed: re-plan a held refill from the time it had left. */
+    synchronized void resume() {
+        if (!paused) return;
+        paused = false;
+        if (!pending) return;
+        long delay = dueAt - SystemClock.uptimeMillis();
+        if (delay < minDelayMillis) delay = 0;
+        MAIN.postDelayed(fire, delay);
+    }
+
+    synchronized void resetStats() {
+        deferred  = 0;
+        immediate = 0;
+        hits      = 0;
+        misses    = 0;
+        lastDelay = 0;
+    }
+
+    /**
+     * Pushes { interval, loadLatency, samples, deferred, immediate, hits,
+     * misses, lastDelay [, nextLoadIn] }. Times are in ms; interval and
+     * loadLatency are absent until observed.
+     */
+    synchronized void push(LuaState L) {
+        L.newTable(0, 9);
+
+        if (intervals > 0) {
+            L.pushNumber(Math.round(intervalMs));
+            L.setField(-2, "interval");
+        }
+        if (latencies > 0) {
+            L.pushNumber(Math.round(loadLatencyMs));
+            L.setField(-2, "loadLatency");
+        }
+        L.pushNumber(intervals);
+        L.setField(-2, "samples");
+
+        L.pushNumber(deferred);
+        L.setField(-2, "deferred");
+        L.pushNumber(immediate);
+        L.setField(-2, "immediate");
+        L.pushNumber(hits);
+        L.setField(-2, "hits");
+        L.pushNumber(misses);
+        L.setField(-2, "misses");
+        L.pushNumber(lastDelay);
+        L.setField(-2, "lastDelay");
+
+        if (pending) {
+            L.pushNumber(Math.max(0L, dueAt - SystemClock.uptimeMillis()));
+            L.setField(-2, "nextLoadIn");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+// ----------------------------------------------------------------------------
+// ReloadScheduler.java  –  exponential-backoff reloads after load failures
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Schedules one delayed reload per failure burst for a single ad unit.
+ *
+ * The n-th consecutive failure waits {@code base * 2^n} ms, capped at
+ * {@code max}, with "equal jitter" (half fixed, half random) so that many
+ * devices hitting the same no-fill don't retry in lockstep. A successful load
+ * resets the sequence. While paused the pending reload is held, not dropped,
+ * and fires on resume once its original deadline has passed.
+ */
+final class ReloadScheduler {
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+    private static final int MAX_SHIFT = 20;
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Runnable reload;
+
+    private int     attempt;
+    private boolean pending;
+    private boolean paused;
+    private long    dueAt;   // uptimeMillis
+
+    private final Runnable fire = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (ReloadScheduler.this) {
+                if (!pending || paused) return;
+                pending = false;
+            }
+            reload.run();
+        }
+    };
+
+    ReloadScheduler(long baseDelayMillis, long maxDelayMillis, Runnable reload) {
+        this.baseDelayMillis = Math.max(1L, baseDelayMillis);
+        this.maxDelayMillis  = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.reload          = reload;
+    }
+
+    /**
+     * Records a failure and arms a reload unless one is already pending.
+     *
+     * @return delay until the reload in ms
+     */
+    synchronized long onFailure() {
+        long now = SystemClock.uptimeMillis();
+        if (pending) return Math.max(0L, dueAt - now);
+
+        long cap   = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, MAX_SHIFT));
+        long half  = cap / 2;
+        long delay = half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+        attempt++;
+
+        pending = true;
+        dueAt   = now + delay;
+        if (!paused) MAIN.postDelayed(fire, delay);
+        return delay;
+    }
+
+    /** Successful load: forget the failure history and drop any pending retry. */
+    synchronized void reset() {
+        attempt = 0;
+        cancel();
+    }
+
+    synchronized void cancel() {
+        pending = false;
+        MAIN.removeCallbacks(fire);
+    }
+
+    synchronized void pause() {
+        if (paused) return;
+        paused = true;
+        MAIN.removeCallbacks(fire);
+    }
+
+    synchronized void resume() {
+        if (!paused) return;
+        paused = false;
+        if (pending) {
+            MAIN.postDelayed(fire, Math.max(0L, dueAt - SystemClock.uptimeMillis()));
+        }
+    }
+
+    synchronized boolean isPending() { return pending; }
+}
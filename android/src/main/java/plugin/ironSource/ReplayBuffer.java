@@ -0,0 +1,161 @@
+// ----------------------------------------------------------------------------
+// ReplayBuffer.java  –  bounded hold-back buffer for undeliverable events
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import com.unity3d.mediation.LevelPlayAdInfo;
+
+/**
+ * Fixed-capacity FIFO of events that arrived while they could not be delivered
+ * (no runtime or listener yet, or the app suspended). Replayed in arrival
+ * order once delivery is possible again.
+ *
+ * When full, the oldest non-critical event is evicted to make room; critical
+ * events (rewards and onComplete calls) are only evicted by other critical events once nothing
+ * else is left. Every eviction is counted, and the count is handed back once
+ * via {@link #takeOverflow()} so the caller can report it.
+ *
+ * All methods are synchronized; the buffer is small and rarely touched.
+ */
+final class ReplayBuffer {
+
+    private final EventQueue.Record[] items;
+    private int head;
+    private int size;
+    private long overflow;
+    /** Held onComplete calls; see {@link #pollCompletion}. */
+    private int completions;
+
+    ReplayBuffer(int capacity) {
+        items = new EventQueue.Record[Math.max(1, capacity)];
+        for (int i = 0; i < items.length; i++) items[i] = new EventQueue.Record();
+    }
+
+    static boolean isCritical(String phase, PendingRequests.Request request) {
+        return request != null || "reward".equals(phase);
+    }
+
+    synchronized boolean isEmpty() { return size == 0; }
+
+    synchronized boolean hasCompletions() { return completions > 0; }
+
+    synchronized int size() { return size; }
+
+    synchronized int capacity() { return items.length; }
+
+    /**
+     * Appends an event, evicting per the policy above if the buffer is full.
+     *
+     * @return false if an event (this one or an older one) had to be dropped
+     */
+    synchronized boolean add(String unit, String type, String phase, boolean isError,
+                             String response, LevelPlayAdInfo adInfo,
+                             PendingRequests.Request request, String result) {
+        boolean kept = true;
+        if (size == items.length) {
+            kept = false;
+            overflow++;
+            int victim = oldestNonCritical();
+            if (victim < 0) {
+                if (!isCritical(phase, request)) return false;   // never push out a critical one for this
+                victim = 0;
+            }
+            removeAt(victim);
+        }
+        EventQueue.Record r = items[(head + size) % items.length];
+        r.unit     = unit;
+        r.type     = type;
+        r.phase    = phase;
+        r.isError  = isError;
+        r.response = response;
+        r.adInfo   = adInfo;
+        r.request  = request;
+        r.result   = result;
+        if (request != null) completions++;
+        size++;
+        return kept;
+    }
+
+    /**
+     * Copies the oldest event into {@code out} and frees its slot.
+     *
+     * @return false if the buffer is empty
+     */
+    synchronized boolean poll(EventQueue.Record out) {
+        if (size == 0) return false;
+        take(0, out);
+        return true;
+    }
+
+    /**
+     * Like {@link #poll} but skips plain events: with no listener to receive
+     * them they stay held, while onComplete calls still have somewhere to go.
+     *
+     * @return false if no onComplete call is held
+     */
+    synchronized boolean pollCompletion(EventQueue.Record out) {
+        for (int i = 0; completions > 0 && i < size; i++) {
+            if (items[(head + i) % items.length].request != null) {
+                take(i, out);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return events dropped since the last call, then resets the count */
+    synchronized long takeOverflow() {
+        long n = overflow;
+        overflow = 0;
+        return n;
+    }
+
+    synchronized void clear() {
+        while (size > 0) {
+            items[head].clear();
+            head = (head + 1) % items.length;
+            size--;
+        }
+        head = 0;
+        completions = 0;
+    }
+
+    /** @return logical index of the oldest non-critical event, or -1 */
+    private int oldestNonCritical() {
+        for (int i = 0; i < size; i++) {
+            EventQueue.Record r = items[(head + i) % items.length];
+            if (!isCritical(r.phase, r.request)) return i;
+        }
+        return -1;
+    }
+
+    /** Copies the event at logical index {@code i} into {@code out} and removes it. */
+    private void take(int i, EventQueue.Record out) {
+        EventQueue.Record r = items[(head + i) % items.length];
+        out.unit     = r.unit;
+        out.type     = r.type;
+        out.phase    = r.phase;
+        out.isError  = r.isError;
+        out.response = r.response;
+        out.adInfo   = r.adInfo;
+        out.request  = r.request;
+        out.result   = r.result;
+        removeAt(i);
+    }
+
+    /** Removes the event at logical index {@code i}, keeping order. */
+    private void removeAt(int i) {
+        int n = items.length;
+        EventQueue.Record gone = items[(head + i) % n];
+        if (gone.request != null) completions--;
+        gone.clear();
+        for (int k = i; k > 0; k--) {
+            items[(head + k) % n] = items[(head + k - 1) % n];
+        }
+        items[head] = gone;
+        head = (head + 1) % n;
+        size--;
+    }
+}
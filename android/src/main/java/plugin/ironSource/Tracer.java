@@ -0,0 +1,226 @@
+// ----------------------------------------------------------------------------
+// Tracer.java  –  opt-in spans: systrace when recording, ring buffer otherwise
+// Package: plugin.ironSource
+// ----------------------------------------------------------------------------
+
+package plugin.ironSource;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.Trace;
+
+import com.naef.jnlua.LuaState;
+
+import java.util.HashMap;
+
+/**
+ * Spans around the plugin's stages, enabled with the {@code tracing} init
+ * option. There are two kinds:
+ *
+ *   section  – synchronous, begun and ended on one thread
+ *              ({@link #begin} / {@link #end})
+ *   async    – begun and ended anywhere, keyed by name + cookie
+ *              ({@link #beginAsync} / {@link #endAsync})
+ *
+ * When a system trace is recording (API 29+, {@code Trace.isEnabled()}),
+ * spans go to android.os.Trace and appear in Perfetto / systrace. Otherwise
+ * they are kept in a fixed-size ring buffer that Lua can read with
+ * {@code ironSource.getTrace()}.
+ *
+ * Every call site checks {@link #enabled} first, so disabled tracing costs one
+ * volatile read and builds no span names.
+ */
+final class Tracer {
+
+    /** Checked by every call site before it builds a span name. */
+    static volatile boolean enabled;
+
+    static final int DEFAULT_CAPACITY = 512;
+    /** Async spans open at once; more are not recorded (their end is ignored). */
+    private static final int MAX_OPEN_ASYNC = 256;
+
+    /** Token for a section that went to android.os.Trace. */
+    private static final long SYSTRACE = -1L;
+
+    private static final class Span {
+        String name;
+        long   cookie;    // -1 for sections
+        int    tid;
+        long   startNanos;
+        long   durationNanos;
+    }
+
+    // Ring buffer and open async spans; guarded by the class lock.
+    private static Span[] spans = new Span[0];
+    private static int    head;
+    private static int    size;
+    private static long   dropped;
+    private static final HashMap<String, Long> open = new HashMap<>();
+
+    private Tracer() {}
+
+    /** Lua thread. Turns tracing on with a buffer of {@code capacity} spans, or off. */
+    static synchronized void configure(boolean on, int capacity) {
+        int n = Math.max(1, capacity);
+        if (on && spans.length != n) {
+            spans = new Span[n];
+            for (int i = 0; i < n; i++) spans[i] = new Span();
+            head = 0;
+            size = 0;
+        }
+        if (!on) open.clear();
+        enabled = on;
+    }
+
+    private static boolean systrace() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled();
+    }
+
+    // -------------------------------------------------------------------------
+    // Sections
+    // -------------------------------------------------------------------------
+
+    /** @return a token for {@link #end}; call on the thread that will end it */
+    static long begin(String name) {
+        if (systrace()) {
+            Trace.beginSection(name);
+            return SYSTRACE;
+        }
+        return System.nanoTime();
+    }
+
+    static void end(String name, long token) {
+        if (token == SYSTRACE) {
+            Trace.endSection();
+            return;
+        }
+        record(name, -1, Process.myTid(), token, System.nanoTime() - token);
+    }
+
+    // -------------------------------------------------------------------------
+    // Async spans
+    // -------------------------------------------------------------------------
+
+    /** Any thread. A second begin for the same name + cookie restarts the span. */
+    static void beginAsync(String name, int cookie) {
+        long start;
+        if (systrace()) {
+            Trace.beginAsyncSection(name, cookie);
+            start = SYSTRACE;
+        } else {
+            start = System.nanoTime();
+        }
+        String key = name + '#' + cookie;
+        synchronized (Tracer.class) {
+            if (open.size() >= MAX_OPEN_ASYNC && !open.containsKey(key)) {
+                dropped++;
+                return;
+            }
+            open.put(key, start);
+        }
+    }
+
+    /** Any thread. Ignored if the span was never begun (or already ended). */
+    static void endAsync(String name, int cookie) {
+        Long start;
+        synchronized (Tracer.class) {
+            start = open.remove(name + '#' + cookie);
+        }
+        if (start == null) return;
+        if (start == SYSTRACE) {
+            Trace.endAsyncSection(name, cookie);
+            return;
+        }
+        record(name, cookie, 0, start, System.nanoTime() - start);
+    }
+
+    // -------------------------------------------------------------------------
+    // Ring buffer
+    // -------------------------------------------------------------------------
+
+    private static synchronized void record(String name, long cookie, int tid,
+                                            long startNanos, long durationNanos) {
+        if (spans.length == 0) return;
+        Span s;
+        if (size == spans.length) {
+            s = spans[head];
+            head = (head + 1) % spans.length;
+            dropped++;
+        } else {
+            s = spans[(head + size) % spans.length];
+            size++;
+        }
+        s.name          = name;
+        s.cookie        = cookie;
+        s.tid           = tid;
+        s.startNanos    = startNanos;
+        s.durationNanos = durationNanos;
+    }
+
+    /**
+     * Pushes { mode, dropped, spans = { ... } }, oldest span first, and empties
+     * the buffer if {@code clear}. Spans use the Chrome trace event fields:
+     *
+     *   section → { name, ph = "X", ts, dur, pid, tid }
+     *   async   → { name, ph = "b", ts, pid, id, cat } and the matching "e"
+     *
+     * so {@code json.encode({ traceEvents = trace.spans })} opens in Perfetto.
+     * Times are in microseconds on the monotonic clock.
+     */
+    static synchronized void push(LuaState L, boolean clear) {
+        int pid = Process.myPid();
+        L.newTable(0, 3);
+
+        L.pushString(!enabled ? "off" : systrace() ? "systrace" : "buffer");
+        L.setField(-2, "mode");
+
+        L.pushNumber(dropped);
+        L.setField(-2, "dropped");
+
+        L.newTable(size, 0);
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            Span s = spans[(head + i) % spans.length];
+            if (s.cookie < 0) {
+                pushEvent(L, s, "X", s.startNanos, pid);
+                L.pushNumber(s.durationNanos / 1000L);
+                L.setField(-2, "dur");
+                L.pushInteger(s.tid);
+                L.setField(-2, "tid");
+                L.rawSet(-2, ++n);
+            } else {
+                pushEvent(L, s, "b", s.startNanos, pid);
+                L.rawSet(-2, ++n);
+                pushEvent(L, s, "e", s.startNanos + s.durationNanos, pid);
+                L.rawSet(-2, ++n);
+            }
+        }
+        L.setField(-2, "spans");
+
+        if (clear) {
+            head    = 0;
+            size    = 0;
+            dropped = 0;
+        }
+    }
+
+    private static void pushEvent(LuaState L, Span s, String ph, long nanos, int pid) {
+        L.newTable(0, 7);
+        L.pushString(s.name);
+        L.setField(-2, "name");
+        L.pushString(ph);
+        L.setField(-2, "ph");
+        L.pushNumber(nanos / 1000L);
+        L.setField(-2, "ts");
+        L.pushInteger(pid);
+        L.setField(-2, "pid");
+        if (s.cookie >= 0) {
+            L.pushNumber(s.cookie);
+            L.setField(-2, "id");
+            L.pushString("ironSource");
+            L.setField(-2, "cat");
+            L.pushInteger(pid);   // async events need a tid for the importer; use the main one
+            L.setField(-2, "tid");
+        }
+    }
+}